@@ -0,0 +1,60 @@
+package com.lvg.grandao_biblioteca.config;
+
+import com.lvg.grandao_biblioteca.controller.Compartimento;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Pone un {@link Compartimento} delante de los controladores de cada almacén, con su propio límite de peticiones
+ * simultáneas y su propia espera máxima: MariaDB (libros), MongoDB (autores), el XML de usuarios y el texto de
+ * categorías. Las peticiones se atienden en hilos virtuales ({@code spring.threads.virtual.enabled}), así que el
+ * límite de cada almacén lo ponen estos compartimentos y no el tamaño del pool de hilos de Tomcat.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Configuration
+public class ConfiguracionCompartimentos implements WebMvcConfigurer {
+
+    private final Compartimento mariadb;
+    private final Compartimento mongodb;
+    private final Compartimento xml;
+    private final Compartimento texto;
+
+    /**
+     * Constructor con los límites de cada compartimento.
+     *
+     * @param maximoMariadb Peticiones simultáneas máximas a los libros.
+     * @param esperaMariadb Espera máxima, en milisegundos, por un hueco para los libros.
+     * @param maximoMongodb Peticiones simultáneas máximas a los autores.
+     * @param esperaMongodb Espera máxima, en milisegundos, por un hueco para los autores.
+     * @param maximoXml Peticiones simultáneas máximas a los usuarios.
+     * @param esperaXml Espera máxima, en milisegundos, por un hueco para los usuarios.
+     * @param maximoTexto Peticiones simultáneas máximas a las categorías.
+     * @param esperaTexto Espera máxima, en milisegundos, por un hueco para las categorías.
+     * @since 1.1
+     */
+    public ConfiguracionCompartimentos(@Value("${compartimentos.mariadb.maximo:10}") int maximoMariadb,
+                                       @Value("${compartimentos.mariadb.espera-ms:500}") long esperaMariadb,
+                                       @Value("${compartimentos.mongodb.maximo:20}") int maximoMongodb,
+                                       @Value("${compartimentos.mongodb.espera-ms:500}") long esperaMongodb,
+                                       @Value("${compartimentos.xml.maximo:4}") int maximoXml,
+                                       @Value("${compartimentos.xml.espera-ms:1000}") long esperaXml,
+                                       @Value("${compartimentos.texto.maximo:8}") int maximoTexto,
+                                       @Value("${compartimentos.texto.espera-ms:500}") long esperaTexto) {
+        this.mariadb = Compartimento.crear("mariadb", maximoMariadb, esperaMariadb);
+        this.mongodb = Compartimento.crear("mongodb", maximoMongodb, esperaMongodb);
+        this.xml = Compartimento.crear("xml", maximoXml, esperaXml);
+        this.texto = Compartimento.crear("texto", maximoTexto, esperaTexto);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registro) {
+        registro.addInterceptor(mariadb).addPathPatterns("/api/libros/**");
+        registro.addInterceptor(mongodb).addPathPatterns("/api/autores/**", "/api/reactivo/autores/**");
+        registro.addInterceptor(xml).addPathPatterns("/api/usuarios/**");
+        registro.addInterceptor(texto).addPathPatterns("/api/categorias/**");
+    }
+}
@@ -0,0 +1,126 @@
+package com.lvg.grandao_biblioteca.config;
+
+import com.lvg.grandao_biblioteca.modelo.dao.FuenteDatosEnrutada;
+import com.lvg.grandao_biblioteca.modelo.dao.MonitorReplica;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuración de la réplica de lectura. Solo se activa si se indica {@code replica.datasource.jdbc-url};
+ * si no, Spring Boot crea el pool único de {@code spring.datasource} como siempre.
+ * Con réplica hay dos pools: el de la primaria, configurado con {@code spring.datasource.*}, y el de la réplica,
+ * con {@code replica.datasource.*} (propiedades de Hikari). La fuente de datos que usan JPA y JDBC reparte las
+ * conexiones entre ambos con {@link FuenteDatosEnrutada}.
+ * <p>
+ * Lo que se lee de la réplica puede ir unos segundos por detrás de la primaria, así que no se guarda en la caché de
+ * segundo nivel, que comparten todas las transacciones: si no, un libro recién cambiado en la primaria podría
+ * volver a la caché con sus datos anteriores y servirse así hasta que caducara. Esas transacciones sí leen de la
+ * caché, porque lo que hay en ella siempre viene de la primaria.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.datasource.jdbc-url")
+public class ConfiguracionReplica {
+
+    /**
+     * Pool de la base de datos primaria, creado igual que lo crearía Spring Boot sin réplica.
+     *
+     * @param propiedades Propiedades {@code spring.datasource.*}.
+     * @return El pool de la primaria.
+     * @since 1.1
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource fuentePrimaria(DataSourceProperties propiedades) {
+        HikariDataSource fuente = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        fuente.setPoolName("primaria");
+        return fuente;
+    }
+
+    /**
+     * Pool de la réplica de lectura.
+     *
+     * @return El pool de la réplica.
+     * @since 1.1
+     */
+    @Bean
+    @ConfigurationProperties("replica.datasource")
+    public HikariDataSource fuenteReplica() {
+        HikariDataSource fuente = new HikariDataSource();
+        fuente.setPoolName("replica");
+        // La réplica solo recibe transacciones de solo lectura.
+        fuente.setReadOnly(true);
+        return fuente;
+    }
+
+    /**
+     * Monitor del retraso de la réplica.
+     *
+     * @param replica Pool de la réplica.
+     * @param consulta Consulta que devuelve el retraso de la réplica.
+     * @param columna Columna del resultado con el retraso en segundos.
+     * @param maximoSegundos Retraso máximo con el que se siguen enviando lecturas a la réplica.
+     * @param intervaloMs Milisegundos entre comprobaciones.
+     * @return El monitor, que se detiene al cerrar el contexto.
+     * @since 1.1
+     */
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("fuenteReplica") DataSource replica,
+                                         @Value("${replica.retraso.consulta:SHOW REPLICA STATUS}") String consulta,
+                                         @Value("${replica.retraso.columna:Seconds_Behind_Master}") String columna,
+                                         @Value("${replica.retraso.maximo-segundos:5}") long maximoSegundos,
+                                         @Value("${replica.retraso.intervalo-ms:1000}") long intervaloMs) {
+        return MonitorReplica.iniciar(replica, consulta, columna, maximoSegundos, intervaloMs);
+    }
+
+    /**
+     * Fuente de datos que usan JPA y JDBC: reparte las conexiones entre la primaria y la réplica, y no las pide
+     * hasta la primera sentencia, cuando ya se sabe si la transacción es de solo lectura. Las transacciones que
+     * acaban en la réplica dejan de guardar en la caché de segundo nivel antes de cargar nada.
+     *
+     * @param primaria Pool de la primaria.
+     * @param replica Pool de la réplica.
+     * @param monitor Monitor del retraso de la réplica.
+     * @param fabricas La fábrica de EntityManager, que se obtiene al usarla porque depende de esta fuente de datos.
+     * @return La fuente de datos principal de la aplicación.
+     * @since 1.1
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("fuentePrimaria") DataSource primaria,
+                                 @Qualifier("fuenteReplica") DataSource replica, MonitorReplica monitor,
+                                 ObjectProvider<EntityManagerFactory> fabricas) {
+        return new LazyConnectionDataSourceProxy(new FuenteDatosEnrutada(primaria, replica, monitor,
+                () -> noGuardarEnCache(fabricas.getIfAvailable())));
+    }
+
+    /**
+     * Hace que el EntityManager de la transacción en curso lea de la caché de segundo nivel pero no guarde en ella
+     * ni entidades ni resultados de consultas.
+     *
+     * @param fabrica La fábrica de EntityManager, o nulo si todavía no existe.
+     */
+    private static void noGuardarEnCache(EntityManagerFactory fabrica) {
+        if (fabrica != null && TransactionSynchronizationManager.getResource(fabrica) instanceof EntityManagerHolder holder) {
+            holder.getEntityManager().unwrap(Session.class).setCacheStoreMode(CacheStoreMode.BYPASS);
+        }
+    }
+}
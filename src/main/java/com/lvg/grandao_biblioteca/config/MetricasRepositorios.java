@@ -0,0 +1,48 @@
+package com.lvg.grandao_biblioteca.config;
+
+import com.lvg.grandao_biblioteca.modelo.dao.MetricasAlmacen;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registra el tiempo y los errores de cada método de los repositorios de Spring Data con las mismas métricas que
+ * los DAO de archivos ({@link MetricasAlmacen}): los de JPA en el almacén {@code mariadb} y los de MongoDB en
+ * {@code mongodb}. Sustituye a las métricas de repositorios de Spring Boot, que usan otro nombre y otras etiquetas.
+ * Las escrituras de {@code LibroService} que usan el {@code EntityManager} o JDBC directamente, sin pasar por un
+ * método del repositorio, se miden en el propio servicio con las mismas métricas.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Component
+public class MetricasRepositorios implements BeanPostProcessor {
+
+    private final MetricasAlmacen mariadb = new MetricasAlmacen("mariadb");
+    private final MetricasAlmacen mongodb = new MetricasAlmacen("mongodb");
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String nombre) {
+        // La factoría del repositorio se crea al inicializar el bean, así que hay que añadir el oyente antes.
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoria) {
+            MetricasAlmacen metricas = bean instanceof JpaRepositoryFactoryBean<?, ?, ?> ? mariadb : mongodb;
+            factoria.addRepositoryFactoryCustomizer(repositorio ->
+                    repositorio.addInvocationListener(invocacion -> registrar(metricas, invocacion)));
+        }
+        return bean;
+    }
+
+    private static void registrar(MetricasAlmacen metricas, RepositoryMethodInvocation invocacion) {
+        String operacion = invocacion.getMethod().getName();
+        RepositoryMethodInvocationResult resultado = invocacion.getResult();
+        if (resultado != null && resultado.getState() == RepositoryMethodInvocationResult.State.ERROR) {
+            metricas.registrarError(operacion, resultado.getError());
+        }
+        metricas.registrar(operacion, invocacion.getDuration(TimeUnit.NANOSECONDS));
+    }
+}
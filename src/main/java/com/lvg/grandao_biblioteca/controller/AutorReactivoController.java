@@ -0,0 +1,158 @@
+package com.lvg.grandao_biblioteca.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lvg.grandao_biblioteca.modelo.dto.Autor;
+import com.lvg.grandao_biblioteca.service.AutorReactivoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.HandlerMapping;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * Versión reactiva de {@link AutorController}, con las mismas operaciones bajo {@code /api/reactivo/autores}.
+ * Ningún método espera a MongoDB: devuelven un {@link Flux} o un {@link Mono} y Spring MVC escribe la respuesta
+ * cuando llegan los datos, sin ocupar el hilo de la petición mientras tanto.
+ * <p>
+ * La lista de autores no se carga entera en memoria: se escribe por bloques de {@value #AUTORES_POR_BLOQUE}
+ * autores, y no se pide el siguiente bloque a MongoDB hasta haber escrito el anterior, así que un cliente lento
+ * frena la lectura del cursor en vez de acumular autores en el servidor. Según la cabecera {@code Accept}, se
+ * devuelve un array JSON ({@code application/json}) o un autor por línea ({@code application/x-ndjson}).
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@RestController
+@RequestMapping("/api/reactivo/autores")
+public class AutorReactivoController {
+
+    /** Autores que se escriben en la respuesta de una vez, para no vaciar el búfer con cada uno. */
+    static final int AUTORES_POR_BLOQUE = 100;
+
+    private final AutorReactivoService autorService;
+    private final ObjectMapper mapper;
+
+    /**
+     * Constructor del controlador.
+     *
+     * @param autorService Servicio reactivo para gestionar las operaciones relacionadas con los autores.
+     * @param mapper Conversor a JSON de Spring, con su misma configuración, para escribir los autores por bloques.
+     * @since 1.1
+     */
+    public AutorReactivoController(AutorReactivoService autorService, ObjectMapper mapper) {
+        this.autorService = autorService;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Obtiene todos los autores a medida que se leen de MongoDB, como un array JSON o, si el cliente acepta
+     * {@code application/x-ndjson}, como un autor JSON por línea. Cuando el cliente acepta los dos formatos se usa
+     * el array, igual que en {@link AutorController#obtenerAutores()}. A diferencia de este, no puede responder 204
+     * si no hay autores, porque el estado se envía antes de leer el primero: en ese caso devuelve 200 y un array
+     * vacío, o una respuesta vacía en NDJSON.
+     *
+     * @param request La petición, con los tipos que Spring ha aceptado de entre los que produce este método.
+     * @return Los fragmentos de la respuesta, con uno o más autores cada uno.
+     * @since 1.1
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<String> obtenerAutores(HttpServletRequest request) {
+        // Spring escribe como Content-Type el primero de estos tipos, así que el formato se decide con el mismo.
+        Collection<?> aceptados = (Collection<?>) request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if (aceptados != null && MediaType.APPLICATION_NDJSON.equals(aceptados.iterator().next())) {
+            return porBloques(autorService.obtenerAutores().map(autor -> aJson(autor) + "\n")); // 200 OK
+        }
+        Flux<String> autores = autorService.obtenerAutores()
+                .index()
+                .map(par -> (par.getT1() == 0 ? "" : ",") + aJson(par.getT2()));
+        return Flux.concat(Mono.just("["), porBloques(autores), Mono.just("]")); // 200 OK
+    }
+
+    /**
+     * Obtiene un autor específico por su ID.
+     * Si el autor existe, devuelve un estado 200 (OK).
+     * Si no se encuentra el autor, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID del autor que se desea obtener.
+     * @return El autor en formato JSON, o un error 404 si no se encuentra.
+     * @since 1.1
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Autor>> obtenerAutorPorId(@PathVariable String id) {
+        return autorService.obtenerAutorPorId(id)
+                .map(autor -> new ResponseEntity<>(autor, HttpStatus.OK)) // 200 OK
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
+    }
+
+    /**
+     * Crea un nuevo autor.
+     * Si la creación es exitosa, devuelve un estado 201 (Created).
+     *
+     * @param autor El autor que se desea crear.
+     * @return El autor creado en formato JSON.
+     * @since 1.1
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Autor>> crearAutor(@Valid @RequestBody Autor autor) {
+        return autorService.crearAutor(autor)
+                .map(creado -> new ResponseEntity<>(creado, HttpStatus.CREATED)); // 201 Created
+    }
+
+    /**
+     * Actualiza un autor existente.
+     * Si la actualización es exitosa, devuelve el autor actualizado con un estado 200 (OK).
+     * Si el autor no se encuentra, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID del autor a actualizar.
+     * @param autor El autor con la nueva información.
+     * @return El autor actualizado en formato JSON o un error 404 si no se encuentra.
+     * @since 1.1
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Autor>> actualizarAutor(@PathVariable String id, @Valid @RequestBody Autor autor) {
+        return autorService.actualizarAutor(id, autor)
+                .map(actualizado -> new ResponseEntity<>(actualizado, HttpStatus.OK)) // 200 OK
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
+    }
+
+    /**
+     * Elimina un autor por su ID.
+     * Si el autor se elimina con éxito, devuelve un estado 204 (No Content).
+     * Si el autor no se encuentra, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID del autor a eliminar.
+     * @return Un estado indicando si la operación fue exitosa o no.
+     * @since 1.1
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> eliminarAutor(@PathVariable String id) {
+        return autorService.eliminarAutor(id)
+                .map(eliminado -> eliminado
+                        ? new ResponseEntity<Void>(HttpStatus.NO_CONTENT) // 204 No Content
+                        : new ResponseEntity<Void>(HttpStatus.NOT_FOUND)); // 404 Not Found
+    }
+
+    /**
+     * Junta los fragmentos en bloques de {@value #AUTORES_POR_BLOQUE}. Spring MVC pide un bloque cada vez y no
+     * pide el siguiente hasta haberlo escrito, y cada bloque pide a su vez solo los autores que le faltan.
+     */
+    private static Flux<String> porBloques(Flux<String> fragmentos) {
+        return fragmentos.buffer(AUTORES_POR_BLOQUE).map(bloque -> String.join("", bloque));
+    }
+
+    private String aJson(Autor autor) {
+        try {
+            return mapper.writeValueAsString(autor);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.lvg.grandao_biblioteca.controller;
 
 import com.lvg.grandao_biblioteca.modelo.dto.Categoria;
+import com.lvg.grandao_biblioteca.modelo.dto.EstadisticasCache;
+import com.lvg.grandao_biblioteca.modelo.dto.FacetaCategoria;
 import com.lvg.grandao_biblioteca.service.CategoriaService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Controlador que maneja las operaciones CRUD relacionadas con las categorías.
@@ -16,7 +21,7 @@ import java.util.List;
  *
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @RestController
 @RequestMapping("/api/categorias")
@@ -38,18 +43,69 @@ public class CategoriaController {
     /**
      * Obtiene una lista de todas las categorías.
      * Si la lista está vacía, devuelve un estado 204 (No Content).
-     * De lo contrario, devuelve la lista con un estado 200 (OK).
+     * Si la petición trae un If-None-Match (o un If-Modified-Since) que coincide con la versión actual,
+     * devuelve un estado 304 (Not Modified) sin cuerpo.
+     * De lo contrario, devuelve la lista con un estado 200 (OK), junto con sus cabeceras ETag y Last-Modified.
      *
-     * @return Una lista de categorías en formato JSON o un estado 204 (No Content) si no hay categorías.
+     * @param request La petición, para comprobar sus cabeceras condicionales.
+     * @return Una lista de categorías en formato JSON, un estado 304 (Not Modified) o un estado 204 (No Content) si no hay categorías.
      * @since 1.0
      */
     @GetMapping
-    public ResponseEntity<List<String>> obtenerCategorias() {
-        List<String> categorias = categoriaService.obtenerCategorias();
-        if (categorias.isEmpty()) {
+    public ResponseEntity<List<String>> obtenerCategorias(WebRequest request) {
+        CategoriaService.ListaCategorias lista = categoriaService.obtenerListaCategorias();
+        // Si la versión coincide, checkNotModified ya deja puestas las cabeceras ETag y Last-Modified.
+        if (request.checkNotModified(lista.etag(), lista.ultimaModificacion())) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED); // 304 Not Modified
+        }
+        if (lista.categorias().isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
         }
-        return new ResponseEntity<>(categorias, HttpStatus.OK); // 200 OK
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setETag(lista.etag());
+        cabeceras.setLastModified(lista.ultimaModificacion());
+        return new ResponseEntity<>(lista.categorias(), cabeceras, HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Obtiene, para cada categoría, el número de libros de su género y la suma de la cantidad de ejemplares.
+     * Los recuentos se mantienen en memoria, así que la petición no consulta la base de datos.
+     *
+     * @return Las facetas de las categorías en formato JSON con un estado 200 (OK).
+     * @since 1.1
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<List<FacetaCategoria>> obtenerFacetas() {
+        return new ResponseEntity<>(categoriaService.obtenerFacetas(), HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Obtiene las estadísticas de la caché de categorías: aciertos, fallos, proporción de aciertos e invalidaciones.
+     *
+     * @return Las estadísticas en formato JSON con un estado 200 (OK).
+     * @since 1.1
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<EstadisticasCache> obtenerEstadisticasCache() {
+        return new ResponseEntity<>(categoriaService.obtenerEstadisticasCache(), HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Obtiene una categoría específica por su ID.
+     * Si la categoría existe, devuelve un estado 200 (OK).
+     * Si no se encuentra la categoría, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID de la categoría que se desea obtener.
+     * @return La categoría en formato JSON, o un error 404 si no se encuentra.
+     * @since 1.1
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Categoria> obtenerCategoriaPorId(@PathVariable Long id) {
+        Optional<Categoria> categoria = categoriaService.obtenerCategoriaPorId(id);
+        if (categoria.isPresent()) {
+            return new ResponseEntity<>(categoria.get(), HttpStatus.OK); // 200 OK
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
     }
 
     /**
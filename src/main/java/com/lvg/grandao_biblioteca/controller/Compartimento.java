@@ -0,0 +1,109 @@
+package com.lvg.grandao_biblioteca.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compartimento (bulkhead) que limita cuántas peticiones pueden estar usando a la vez un mismo almacén.
+ * Cada petición espera como mucho un tiempo a que haya hueco; si no lo hay, se responde 503 sin llegar al almacén,
+ * de modo que un almacén lento o bloqueado solo satura su propio compartimento y no los hilos de los demás.
+ * <p>
+ * El hueco se ocupa antes de llamar al controlador (y, por tanto, antes de abrir una transacción o pedir una
+ * conexión) y se libera al terminar la petición; en las respuestas en streaming, al terminar de escribirlas.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class Compartimento implements AsyncHandlerInterceptor {
+
+    private final String almacen;
+    private final int maximo;
+    private final long esperaMs;
+    private final String atributo;
+    private final Semaphore huecos;
+    private final Counter rechazos;
+
+    private Compartimento(String almacen, int maximo, long esperaMs) {
+        this.almacen = almacen;
+        this.maximo = maximo;
+        this.esperaMs = esperaMs;
+        this.atributo = Compartimento.class.getName() + "." + almacen;
+        // Justo: las peticiones que esperan entran por orden de llegada.
+        this.huecos = new Semaphore(maximo, true);
+        this.rechazos = Metrics.counter("compartimento.rechazos", "almacen", almacen);
+    }
+
+    /**
+     * Crea el compartimento y registra su métrica de huecos ocupados.
+     *
+     * @param almacen Nombre del almacén, que se usa en el mensaje de error y en las métricas.
+     * @param maximo Número máximo de peticiones simultáneas.
+     * @param esperaMs Milisegundos que una petición puede esperar a que haya hueco.
+     * @return El compartimento.
+     * @throws IllegalArgumentException Si el máximo no es positivo o la espera es negativa.
+     * @since 1.1
+     */
+    public static Compartimento crear(String almacen, int maximo, long esperaMs) {
+        if (maximo <= 0 || esperaMs < 0) {
+            throw new IllegalArgumentException("Compartimento " + almacen + " no válido: máximo " + maximo
+                    + ", espera " + esperaMs + " ms");
+        }
+        Compartimento compartimento = new Compartimento(almacen, maximo, esperaMs);
+        Gauge.builder("compartimento.ocupados", compartimento, Compartimento::ocupados)
+                .tag("almacen", almacen)
+                .register(Metrics.globalRegistry);
+        return compartimento;
+    }
+
+    /**
+     * Obtiene el número de peticiones que están usando el almacén.
+     *
+     * @return Los huecos ocupados.
+     * @since 1.1
+     */
+    public int ocupados() {
+        return maximo - huecos.availablePermits();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // En el segundo despacho de una respuesta en streaming la petición ya tiene su hueco.
+        if (request.getAttribute(atributo) != null) {
+            return true;
+        }
+        boolean dentro;
+        try {
+            dentro = huecos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dentro = false;
+        }
+        if (!dentro) {
+            rechazos.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "El almacén " + almacen + " está saturado, inténtalo de nuevo más tarde"); // 503 Service Unavailable
+            return false;
+        }
+        request.setAttribute(atributo, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(atributo) != null) {
+            request.removeAttribute(atributo);
+            huecos.release();
+        }
+    }
+}
@@ -1,13 +1,30 @@
 package com.lvg.grandao_biblioteca.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lvg.grandao_biblioteca.modelo.dto.CambiosLibro;
+import com.lvg.grandao_biblioteca.modelo.dto.EstadisticasRegionCache;
 import com.lvg.grandao_biblioteca.modelo.dto.Libro;
+import com.lvg.grandao_biblioteca.modelo.dto.PaginaLibros;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoBusquedaLibro;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoValidacionIsbn;
+import com.lvg.grandao_biblioteca.modelo.dto.SeleccionLibros;
+import com.lvg.grandao_biblioteca.service.IndiceLibros;
 import com.lvg.grandao_biblioteca.service.LibroService;
+import com.lvg.grandao_biblioteca.service.RegionesCache;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,23 +34,41 @@ import java.util.Optional;
  *
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @RestController
 @RequestMapping("/api/libros")
 public class LibroController {
 
+    // Tamaño máximo de una página, para que un cliente no pueda volver a pedir toda la tabla de una vez.
+    private static final int MAX_LIMITE = 1000;
+
+    // Número máximo de libros que se pueden crear, o eliminar por ID, en una sola petición.
+    private static final int MAX_LOTE = 10000;
+
+    // Número máximo de ISBN que se pueden validar en una sola petición.
+    private static final int MAX_VALIDACION = 100000;
+
+    // Tipo de contenido de la exportación: un objeto JSON por línea.
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final LibroService libroService;
+    private final RegionesCache regionesCache;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructor del controlador.
      *
      * @param libroService Servicio para gestionar las operaciones relacionadas con los libros.
+     * @param regionesCache Servicio que obtiene las estadísticas de la caché de segundo nivel.
+     * @param objectMapper Mapper de Jackson usado para escribir la exportación en streaming.
      * @since 1.0
      */
     @Autowired
-    public LibroController(LibroService libroService) {
+    public LibroController(LibroService libroService, RegionesCache regionesCache, ObjectMapper objectMapper) {
         this.libroService = libroService;
+        this.regionesCache = regionesCache;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -53,6 +88,101 @@ public class LibroController {
         return new ResponseEntity<>(libros, HttpStatus.OK); // 200 OK
     }
 
+    /**
+     * Obtiene una página de libros ordenados por ID, paginando por cursor (keyset) en lugar de por desplazamiento,
+     * así que todas las páginas cuestan lo mismo. Se usa en lugar de {@link #obtenerLibros()} cuando se indica
+     * el parámetro {@code limit}.
+     * Si el cursor o el límite no son válidos, devuelve un estado 400 (Bad Request).
+     *
+     * @param after Cursor devuelto en {@code siguiente} por la página anterior (o el ID del último libro leído);
+     *              si no se indica, se devuelve la primera página.
+     * @param limit Número máximo de libros de la página, entre 1 y 1000.
+     * @return La página de libros en formato JSON, con el cursor de la siguiente página, con un estado 200 (OK).
+     * @since 1.1
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<PaginaLibros> obtenerPaginaLibros(@RequestParam(required = false) String after,
+                                                            @RequestParam int limit) {
+        if (limit <= 0 || limit > MAX_LIMITE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        try {
+            return new ResponseEntity<>(libroService.obtenerPaginaLibros(after, limit), HttpStatus.OK); // 200 OK
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
+
+    /**
+     * Exporta todo el catálogo de libros en formato NDJSON (un libro en JSON por línea), ordenado por ID.
+     * Los libros se escriben en la respuesta a medida que llegan de la base de datos, sin construir la lista
+     * completa, así que la memoria usada no depende del tamaño del catálogo y los primeros libros se envían
+     * antes de que termine la consulta.
+     *
+     * @return Los libros en formato NDJSON, con un estado 200 (OK).
+     * @since 1.1
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarLibros() {
+        // Sin separador entre valores: cada libro termina con su propio salto de línea.
+        ObjectWriter escritor = objectMapper.writerFor(Libro.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                libroService.exportarLibros(libro -> {
+                    try {
+                        escritor.writeValue(generador, libro);
+                        generador.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return new ResponseEntity<>(cuerpo, HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Busca libros por las palabras de su título y su género, sin distinguir mayúsculas ni tildes,
+     * usando el índice invertido en memoria. Los resultados se ordenan por relevancia.
+     * Si no se encuentra ningún libro, devuelve un estado 204 (No Content).
+     *
+     * @param q El texto a buscar; la última palabra también vale como prefijo.
+     * @param offset Número de resultados que se saltan (0 por defecto).
+     * @param limit Número máximo de resultados a devolver (20 por defecto, como mucho 1000).
+     *              Junto con el offset, no puede pasar de {@link IndiceLibros#MAX_RESULTADOS}; si pasa, devuelve 400.
+     * @return Los libros encontrados en formato JSON o un estado 204 (No Content) si no hay ninguno.
+     * @since 1.1
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ResultadoBusquedaLibro>> buscarLibros(@RequestParam String q,
+                                                                     @RequestParam(defaultValue = "0") int offset,
+                                                                     @RequestParam(defaultValue = "20") int limit) {
+        if (offset < 0 || limit <= 0 || limit > MAX_LIMITE || offset > IndiceLibros.MAX_RESULTADOS - limit) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        List<ResultadoBusquedaLibro> resultados = libroService.buscarLibros(q, offset, limit);
+        if (resultados.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+        }
+        return new ResponseEntity<>(resultados, HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Obtiene las estadísticas de cada región de la caché de segundo nivel (libros, consultas de libros y marcas
+     * de tiempo de las tablas): aciertos, fallos, escrituras, desalojos y proporción de aciertos.
+     *
+     * @return Las estadísticas en formato JSON con un estado 200 (OK).
+     * @since 1.1
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<EstadisticasRegionCache>> obtenerEstadisticasCache() {
+        return new ResponseEntity<>(regionesCache.obtenerEstadisticas(), HttpStatus.OK); // 200 OK
+    }
+
     /**
      * Obtiene un libro específico por su ID.
      * Si el libro existe, devuelve un estado 200 (OK).
@@ -71,9 +201,51 @@ public class LibroController {
         return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
     }
 
+    /**
+     * Obtiene un libro por su ISBN, con o sin guiones.
+     * Si el libro existe, devuelve un estado 200 (OK).
+     * Si no se encuentra el libro, devuelve un estado 404 (Not Found); los ISBN que no están en el filtro de ISBN
+     * conocidos se responden sin consultar la base de datos.
+     * Si el ISBN no es válido, devuelve un estado 400 (Bad Request).
+     *
+     * @param isbn El ISBN-10 o ISBN-13 del libro que se desea obtener.
+     * @return El libro en formato JSON, o un error 404 si no se encuentra.
+     * @since 1.1
+     */
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<Libro> obtenerLibroPorIsbn(@PathVariable String isbn) {
+        try {
+            Optional<Libro> libro = libroService.obtenerLibroPorIsbn(isbn);
+            if (libro.isPresent()) {
+                return new ResponseEntity<>(libro.get(), HttpStatus.OK); // 200 OK
+            }
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
+
+    /**
+     * Valida varios ISBN-10 o ISBN-13 en una sola petición, sin consultar la base de datos.
+     * Para cada ISBN devuelve si es válido y su forma canónica (ISBN-13 sin guiones), que es como se guarda.
+     * Si la lista está vacía o tiene más de 100000 ISBN, devuelve un estado 400 (Bad Request).
+     *
+     * @param isbns Los ISBN a validar, con o sin guiones.
+     * @return El resultado de cada ISBN, en el mismo orden, con un estado 200 (OK).
+     * @since 1.1
+     */
+    @PostMapping("/isbn/validate")
+    public ResponseEntity<List<ResultadoValidacionIsbn>> validarIsbns(@RequestBody List<String> isbns) {
+        if (isbns.isEmpty() || isbns.size() > MAX_VALIDACION) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        return new ResponseEntity<>(libroService.validarIsbns(isbns), HttpStatus.OK); // 200 OK
+    }
+
     /**
      * Crea un nuevo libro.
      * Si la creación es exitosa, devuelve un estado 201 (Created).
+     * Si ya existe un libro con el mismo ISBN, devuelve un estado 409 (Conflict).
      *
      * @param libro El libro que se desea crear.
      * @return El libro creado en formato JSON.
@@ -81,14 +253,45 @@ public class LibroController {
      */
     @PostMapping
     public ResponseEntity<Libro> crearLibro(@Valid @RequestBody Libro libro) {
-        Libro createdLibro = libroService.crearLibro(libro);
-        return new ResponseEntity<>(createdLibro, HttpStatus.CREATED); // 201 Created
+        try {
+            Libro createdLibro = libroService.crearLibro(libro);
+            return new ResponseEntity<>(createdLibro, HttpStatus.CREATED); // 201 Created
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            // La base de datos también rechaza el duplicado si otro libro con el mismo ISBN se crea a la vez.
+            return new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
+        }
+    }
+
+    /**
+     * Crea varios libros en una sola petición y una sola transacción, con inserciones por lotes.
+     * Si algún libro no es válido, no se crea ninguno y devuelve un estado 400 (Bad Request).
+     * Si el lote está vacío o tiene más de 10000 libros, devuelve un estado 400 (Bad Request).
+     * Si dos libros del lote tienen el mismo ISBN o alguno ya existe, no se crea ninguno y devuelve un estado
+     * 409 (Conflict).
+     *
+     * @param libros Los libros que se desean crear.
+     * @return Los libros creados en formato JSON, con sus IDs, con un estado 201 (Created).
+     * @since 1.1
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<Libro>> crearLibros(@RequestBody List<@Valid Libro> libros) {
+        if (libros.isEmpty() || libros.size() > MAX_LOTE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        try {
+            List<Libro> creados = libroService.crearLibros(libros);
+            return new ResponseEntity<>(creados, HttpStatus.CREATED); // 201 Created
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
+        }
     }
 
     /**
      * Actualiza un libro existente.
      * Si la actualización es exitosa, devuelve el libro actualizado con un estado 200 (OK).
      * Si el libro no se encuentra, devuelve un estado 404 (Not Found).
+     * Si el nuevo ISBN ya lo tiene otro libro, o se indica la versión y el libro ha cambiado desde entonces,
+     * devuelve un estado 409 (Conflict).
      *
      * @param id El ID del libro a actualizar.
      * @param libro El libro con la nueva información.
@@ -97,13 +300,83 @@ public class LibroController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<Libro> actualizarLibro(@Valid @PathVariable Integer id, @RequestBody Libro libro) {
-        Libro updatedLibro = libroService.actualizarLibro(id, libro);
+        Libro updatedLibro;
+        try {
+            updatedLibro = libroService.actualizarLibro(id, libro);
+        } catch (IllegalStateException | DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
+        }
         if (updatedLibro != null) {
             return new ResponseEntity<>(updatedLibro, HttpStatus.OK); // 200 OK
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
     }
 
+    /**
+     * Modifica solo los campos indicados de un libro. El cuerpo debe incluir la versión del libro que se leyó.
+     * Si la modificación es exitosa, devuelve el libro modificado, con su nueva versión, con un estado 200 (OK).
+     * Si el libro no se encuentra, devuelve un estado 404 (Not Found).
+     * Si algún campo no es válido o falta la versión, devuelve un estado 400 (Bad Request).
+     * Si el libro ha cambiado desde la versión indicada, o el nuevo ISBN ya lo tiene otro libro,
+     * devuelve un estado 409 (Conflict).
+     *
+     * @param id El ID del libro a modificar.
+     * @param cambios Los campos a cambiar y la versión del libro que se leyó.
+     * @return El libro modificado en formato JSON o un error si no se ha podido modificar.
+     * @since 1.1
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Libro> modificarLibro(@PathVariable Integer id, @Valid @RequestBody CambiosLibro cambios) {
+        try {
+            Optional<Libro> libro = libroService.modificarLibro(id, cambios);
+            if (libro.isPresent()) {
+                return new ResponseEntity<>(libro.get(), HttpStatus.OK); // 200 OK
+            }
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        } catch (IllegalStateException | DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
+        }
+    }
+
+    /**
+     * Presta un ejemplar de un libro, restando uno a su cantidad de forma atómica.
+     * Si se presta, devuelve un estado 204 (No Content).
+     * Si no quedan ejemplares, devuelve un estado 409 (Conflict).
+     * Si el libro no se encuentra, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID del libro que se presta.
+     * @return Un estado indicando si se ha prestado el ejemplar.
+     * @since 1.1
+     */
+    @PostMapping("/{id}/prestar")
+    public ResponseEntity<Void> prestarLibro(@PathVariable Integer id) {
+        return respuestaStock(libroService.prestarLibro(id));
+    }
+
+    /**
+     * Devuelve un ejemplar de un libro, sumando uno a su cantidad de forma atómica.
+     * Si se devuelve, devuelve un estado 204 (No Content).
+     * Si el libro no se encuentra, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID del libro que se devuelve.
+     * @return Un estado indicando si se ha devuelto el ejemplar.
+     * @since 1.1
+     */
+    @PostMapping("/{id}/devolver")
+    public ResponseEntity<Void> devolverLibro(@PathVariable Integer id) {
+        return respuestaStock(libroService.devolverLibro(id));
+    }
+
+    private static ResponseEntity<Void> respuestaStock(LibroService.ResultadoStock resultado) {
+        return switch (resultado) {
+            case HECHO -> new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+            case SIN_COPIAS -> new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
+            case NO_ENCONTRADO -> new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        };
+    }
+
     /**
      * Elimina un libro por su ID.
      * Si el libro se elimina con éxito, devuelve un estado 204 (No Content).
@@ -120,4 +393,23 @@ public class LibroController {
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
     }
-}
\ No newline at end of file
+
+    /**
+     * Elimina a la vez todos los libros que cumplen los criterios indicados (IDs, género y cantidad), con una sola
+     * sentencia y sin cargar los libros. Por ejemplo, {@code {"cantidad": 0}} elimina los libros sin copias.
+     * Devuelve los IDs de los libros eliminados, que pueden ser menos de los indicados si alguno no existía,
+     * con un estado 200 (OK).
+     * Si no se indica ningún criterio, o se indican más de 10000 IDs, devuelve un estado 400 (Bad Request).
+     *
+     * @param seleccion Los criterios de los libros a eliminar.
+     * @return Los IDs de los libros eliminados en formato JSON.
+     * @since 1.1
+     */
+    @PostMapping("/delete")
+    public ResponseEntity<List<Integer>> eliminarLibros(@RequestBody SeleccionLibros seleccion) {
+        if (seleccion.estaVacia() || seleccion.getIds() != null && seleccion.getIds().size() > MAX_LOTE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        return new ResponseEntity<>(libroService.eliminarLibros(seleccion), HttpStatus.OK); // 200 OK
+    }
+}
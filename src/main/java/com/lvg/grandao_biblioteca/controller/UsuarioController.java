@@ -1,39 +1,55 @@
 package com.lvg.grandao_biblioteca.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoImportacion;
 import com.lvg.grandao_biblioteca.modelo.dto.Usuario;
 import com.lvg.grandao_biblioteca.service.UsuarioService;
 import jakarta.validation.Valid;
 import jakarta.xml.bind.JAXBException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Controlador que maneja las operaciones CRUD relacionadas con los usuarios.
- * Permite realizar acciones como obtener y agregar usuarios.
+ * Permite realizar acciones como obtener, buscar, agregar e importar usuarios.
  *
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @RestController
 @RequestMapping("/api/usuarios")
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructor del controlador.
      *
      * @param usuarioService Servicio para gestionar las operaciones relacionadas con los usuarios.
+     * @param objectMapper Mapper de Jackson usado para escribir las respuestas en streaming.
      * @since 1.0
      */
     @Autowired
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, ObjectMapper objectMapper) {
         this.usuarioService = usuarioService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -54,9 +70,69 @@ public class UsuarioController {
         return new ResponseEntity<>(usuarios, HttpStatus.OK); // 200 OK
     }
 
+    /**
+     * Obtiene un usuario específico por su ID.
+     * Si el usuario existe, devuelve un estado 200 (OK).
+     * Si no se encuentra el usuario, devuelve un estado 404 (Not Found).
+     *
+     * @param id El ID del usuario que se desea obtener.
+     * @return El usuario en formato JSON, o un error 404 si no se encuentra.
+     * @throws XMLStreamException Si ocurre un error al procesar el archivo XML.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     * @since 1.1
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Usuario> obtenerUsuarioPorId(@PathVariable Integer id) throws XMLStreamException, IOException {
+        Optional<Usuario> usuario = usuarioService.obtenerUsuarioPorId(id);
+        if (usuario.isPresent()) {
+            return new ResponseEntity<>(usuario.get(), HttpStatus.OK); // 200 OK
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+    }
+
+    /**
+     * Obtiene una página de usuarios en streaming.
+     * Los usuarios se leen del archivo XML de uno en uno y se escriben directamente en la respuesta como un array JSON,
+     * sin construir la lista completa, por lo que la memoria usada por petición no depende del número de usuarios.
+     * La lectura del archivo se detiene en cuanto se completa la página.
+     *
+     * @param offset Número de usuarios que se saltan (0 por defecto).
+     * @param limit Número máximo de usuarios a devolver (todos si no se indica).
+     * @return Un array JSON con los usuarios de la página, con un estado 200 (OK).
+     * @since 1.1
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> obtenerUsuariosStream(@RequestParam(defaultValue = "0") int offset,
+                                                                       @RequestParam(defaultValue = "-1") int limit) {
+        if (offset < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        // No se vacía la salida tras cada usuario; el contenedor ya escribe por bloques.
+        ObjectWriter escritor = objectMapper.writerFor(Usuario.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                generador.writeStartArray();
+                usuarioService.recorrerUsuarios(offset, limit, usuario -> {
+                    try {
+                        escritor.writeValue(generador, usuario);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generador.writeEndArray();
+            } catch (XMLStreamException e) {
+                throw new IOException("Error al leer el archivo de usuarios", e);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return new ResponseEntity<>(cuerpo, HttpStatus.OK); // 200 OK
+    }
+
     /**
      * Agrega un nuevo usuario.
      * Si la adición es exitosa, devuelve un estado 201 (Created).
+     * Si ya existe un usuario con el mismo ID, devuelve un estado 409 (Conflict).
      *
      * @param usuario El usuario que se desea agregar.
      * @return Un estado indicando si la operación fue exitosa o no.
@@ -65,7 +141,104 @@ public class UsuarioController {
      */
     @PostMapping
     public ResponseEntity<Void> agregarUsuario(@Valid @RequestBody Usuario usuario) throws JAXBException {
-        usuarioService.agregarUsuario(usuario);
+        try {
+            usuarioService.agregarUsuario(usuario);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
+        }
         return new ResponseEntity<>(HttpStatus.CREATED); // 201 Created
     }
+
+    /**
+     * Obtiene un usuario por su correo, usando el índice en memoria.
+     * Si el usuario existe, devuelve un estado 200 (OK).
+     * Si no se encuentra el usuario, devuelve un estado 404 (Not Found).
+     *
+     * @param correo El correo del usuario, sin distinguir mayúsculas.
+     * @return El usuario en formato JSON, o un error 404 si no se encuentra.
+     * @since 1.1
+     */
+    @GetMapping("/by-correo/{correo}")
+    public ResponseEntity<Usuario> obtenerUsuarioPorCorreo(@PathVariable String correo) {
+        Optional<Usuario> usuario = usuarioService.buscarPorCorreo(correo);
+        if (usuario.isPresent()) {
+            return new ResponseEntity<>(usuario.get(), HttpStatus.OK); // 200 OK
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+    }
+
+    /**
+     * Obtiene los usuarios con un teléfono, usando el índice en memoria.
+     * Los espacios y demás caracteres que no son dígitos se ignoran.
+     * Si no hay ninguno, devuelve un estado 204 (No Content).
+     *
+     * @param telefono El teléfono a buscar.
+     * @return Una lista de usuarios en formato JSON o un estado 204 (No Content) si no hay usuarios.
+     * @since 1.1
+     */
+    @GetMapping("/by-telefono/{telefono}")
+    public ResponseEntity<List<Usuario>> obtenerUsuariosPorTelefono(@PathVariable String telefono) {
+        List<Usuario> usuarios = usuarioService.buscarPorTelefono(telefono);
+        if (usuarios.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+        }
+        return new ResponseEntity<>(usuarios, HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Busca los usuarios cuyo nombre empieza por un prefijo, sin distinguir mayúsculas ni tildes.
+     * Si no hay ninguno, devuelve un estado 204 (No Content).
+     *
+     * @param prefix El prefijo del nombre de usuario.
+     * @param limit Número máximo de usuarios a devolver (50 por defecto).
+     * @return Una lista de usuarios en formato JSON o un estado 204 (No Content) si no hay usuarios.
+     * @since 1.1
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Usuario>> buscarUsuarios(@RequestParam String prefix,
+                                                        @RequestParam(defaultValue = "50") int limit) {
+        if (limit <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+        List<Usuario> usuarios = usuarioService.buscarPorPrefijo(prefix, limit);
+        if (usuarios.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+        }
+        return new ResponseEntity<>(usuarios, HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Importa un lote de usuarios enviado como un array JSON.
+     * Todo el lote se aplica con una sola lectura y una sola escritura del almacén.
+     * Devuelve un estado 200 (OK) con el resultado de cada elemento (creado, inválido o duplicado).
+     *
+     * @param usuarios Los usuarios a importar.
+     * @return El resultado de cada elemento del lote en formato JSON.
+     * @throws JAXBException Si ocurre un error al escribir los usuarios.
+     * @since 1.1
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ResultadoImportacion>> importarUsuarios(@RequestBody List<Usuario> usuarios) throws JAXBException {
+        return new ResponseEntity<>(usuarioService.importarUsuarios(usuarios), HttpStatus.OK); // 200 OK
+    }
+
+    /**
+     * Importa un lote de usuarios enviado como NDJSON (un objeto JSON por línea).
+     * Todo el lote se aplica con una sola lectura y una sola escritura del almacén.
+     * Devuelve un estado 200 (OK) con el resultado de cada elemento (creado, inválido o duplicado).
+     *
+     * @param cuerpo El cuerpo de la petición, con un usuario por línea.
+     * @return El resultado de cada elemento del lote en formato JSON.
+     * @throws JAXBException Si ocurre un error al escribir los usuarios.
+     * @throws IOException Si el cuerpo no es NDJSON válido.
+     * @since 1.1
+     */
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<List<ResultadoImportacion>> importarUsuariosNdjson(InputStream cuerpo) throws JAXBException, IOException {
+        List<Usuario> usuarios;
+        try (MappingIterator<Usuario> it = objectMapper.readerFor(Usuario.class).readValues(cuerpo)) {
+            usuarios = it.readAll();
+        }
+        return new ResponseEntity<>(usuarioService.importarUsuarios(usuarios), HttpStatus.OK); // 200 OK
+    }
 }
\ No newline at end of file
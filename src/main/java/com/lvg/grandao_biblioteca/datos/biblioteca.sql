@@ -8,14 +8,19 @@ CREATE TABLE Libros (
     titulo VARCHAR(255) NOT NULL,
     genero VARCHAR(100),
     isbn VARCHAR(20) UNIQUE,
-    cantidad INT
+    cantidad INT,
+    version INT NOT NULL DEFAULT 0
 );
 
--- Insertar datos en la tabla Libros
+-- Insertar datos en la tabla Libros (los ISBN se guardan normalizados, sin guiones)
 INSERT INTO Libros (titulo, genero, isbn, cantidad) VALUES
-    ('El Quijote', 'Ficción', '978-3-16-148410-0', 5),
-    ('Cien Años de Soledad', 'Realismo mágico', '978-0-06-088328-7', 3),
-    ('1984', 'Distopía', '978-0-452-28423-4', 4),
-    ('Orgullo y Prejuicio', 'Romántico', '978-1-59308-201-1', 2),
-    ('Crimen y Castigo', 'Psicológico', '978-0-14-044913-6', 3),
-    ('Diálogos de Platón', 'Filosofía', '978-0-19-283617-3', 4);
\ No newline at end of file
+    ('El Quijote', 'Ficción', '9783161484100', 5),
+    ('Cien Años de Soledad', 'Realismo mágico', '9780060883287', 3),
+    ('1984', 'Distopía', '9780452284234', 4),
+    ('Orgullo y Prejuicio', 'Romántico', '9781593082011', 2),
+    ('Crimen y Castigo', 'Psicológico', '9780140449136', 3),
+    ('Diálogos de Platón', 'Filosofía', '9780192836173', 4);
+
+-- Secuencia de IDs de Libros: Hibernate reserva bloques de 50 IDs para poder insertar por lotes.
+-- Empieza después del último libro_id; las inserciones manuales deben usar NEXT VALUE FOR libros_seq.
+CREATE SEQUENCE libros_seq START WITH 7 INCREMENT BY 50;
@@ -0,0 +1,27 @@
+-- Migración de una base de datos Biblioteca creada con la versión 1.0.
+USE Biblioteca;
+
+-- Secuencia de IDs de Libros: Hibernate reserva bloques de 50 IDs para poder insertar por lotes.
+-- La columna libro_id sigue siendo AUTO_INCREMENT, pero las inserciones manuales deben usar NEXT VALUE FOR libros_seq
+-- para no ocupar IDs de un bloque ya reservado. La secuencia empieza después del último libro_id existente.
+SET @inicio = (SELECT COALESCE(MAX(libro_id), 0) + 1 FROM Libros);
+SET @sentencia = CONCAT('CREATE SEQUENCE IF NOT EXISTS libros_seq START WITH ', @inicio, ' INCREMENT BY 50');
+PREPARE crear_secuencia FROM @sentencia;
+EXECUTE crear_secuencia;
+DEALLOCATE PREPARE crear_secuencia;
+
+-- Los ISBN se guardan normalizados (solo dígitos y 'X'), para buscar por ISBN con el índice único de la columna.
+-- Si dos libros tienen el mismo ISBN escrito de distinta forma, la sentencia falla por el índice único
+-- y hay que resolver el duplicado a mano antes de repetirla.
+UPDATE Libros SET isbn = REGEXP_REPLACE(UPPER(isbn), '[^0-9X]', '') WHERE isbn IS NOT NULL;
+
+-- La forma canónica de un ISBN es su ISBN-13: los ISBN-10 se convierten con el prefijo 978 y un nuevo control,
+-- que se calcula con pesos 1 y 3 alternos (la suma ponderada del prefijo 978 es 38).
+UPDATE Libros SET isbn = CONCAT('978', LEFT(isbn, 9), MOD(10 - MOD(38
+        + 3 * SUBSTRING(isbn, 1, 1) + SUBSTRING(isbn, 2, 1) + 3 * SUBSTRING(isbn, 3, 1)
+        + SUBSTRING(isbn, 4, 1) + 3 * SUBSTRING(isbn, 5, 1) + SUBSTRING(isbn, 6, 1)
+        + 3 * SUBSTRING(isbn, 7, 1) + SUBSTRING(isbn, 8, 1) + 3 * SUBSTRING(isbn, 9, 1), 10), 10))
+    WHERE LENGTH(isbn) = 10;
+
+-- Versión de cada libro, para el bloqueo optimista: cada modificación la comprueba y la incrementa.
+ALTER TABLE Libros ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,25 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import com.lvg.grandao_biblioteca.modelo.dto.Autor;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repositorio reactivo para realizar operaciones CRUD sobre los autores sin bloquear hilos.
+ * Trabaja sobre la misma colección que {@link AutorRepository}, con el driver reactivo de MongoDB:
+ * las consultas devuelven los autores a medida que llegan del cursor, según los vaya pidiendo quien se suscribe.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public interface AutorReactivoRepository extends ReactiveMongoRepository<Autor, String> {
+
+    /**
+     * Elimina un autor por su ID.
+     *
+     * @param id El ID del autor a eliminar.
+     * @return El número de autores eliminados: 1 si existía y 0 si no.
+     * @since 1.1
+     */
+    Mono<Long> deleteAutorById(String id);
+}
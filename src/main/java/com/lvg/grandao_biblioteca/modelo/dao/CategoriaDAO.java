@@ -3,61 +3,459 @@ package com.lvg.grandao_biblioteca.modelo.dao;
 import com.lvg.grandao_biblioteca.modelo.dto.Categoria;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * DAO (Data Access Object) que maneja la lectura y escritura de categorías en un archivo de texto.
  * Utiliza un archivo plano para almacenar las categorías.
+ * <p>
+ * El archivo se lee a través de una proyección en memoria ({@link MappedByteBuffer}) y, al crear el DAO,
+ * se construye un índice del ID de cada categoría a la posición de su línea. Así, obtener una categoría
+ * por su ID no recorre el archivo. El índice se actualiza al agregar categorías y se reconstruye si el archivo
+ * se modifica desde fuera (ver {@link #recargarSiHaCambiado()}).
+ * <p>
+ * Las categorías nuevas se añaden a través de un único escritor ({@link EscritorCategorias}) que agrupa las
+ * escrituras concurrentes y las fuerza a disco según la {@link Durabilidad} elegida.
+ * <p>
+ * Varias instancias de la aplicación pueden compartir el archivo: las escrituras se hacen con el archivo bloqueado
+ * y cada una incrementa su generación (ver {@link CoordinadorArchivo}). Antes de cada consulta se compara la
+ * generación del archivo con la de la proyección, y solo si ha cambiado se vuelve a proyectar.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 public class CategoriaDAO {
 
     private static final String FILE_PATH = "src/main/java/com/lvg/grandao_biblioteca/datos/categorias.txt";
 
+    // Las métricas de todas las instancias se suman en las del almacén "texto". Como el archivo está proyectado
+    // en memoria, se cuentan como leídos los bytes que se recorren o decodifican.
+    private static final MetricasAlmacen METRICAS = new MetricasAlmacen("texto");
+
+    private final Path path;
+    private final CoordinadorArchivo coordinador;
+    private final EscritorCategorias escritor;
+
+    // Proyección actual del archivo; se sustituye por otra cada vez que el archivo cambia.
+    private volatile Vista vista;
+
+    // Protege la sustitución de la vista. Es un cerrojo y no synchronized porque con él se vuelve a proyectar
+    // e indexar el archivo, y un hilo virtual que espera a un monitor bloquea también su hilo portador.
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    /**
+     * Proyección del archivo en memoria junto con su índice y los datos del archivo en el momento de proyectarlo.
+     * El índice guarda, por cada ID de categoría, la posición de su línea (32 bits altos) y su longitud en bytes
+     * (32 bits bajos). Al agregar una categoría, la nueva vista comparte el índice con la anterior.
+     */
+    private record Vista(MappedByteBuffer mapa, Map<Long, Long> indice, FileTime ultimaModificacion, long generacion) {}
+
+    /**
+     * Durabilidad de las categorías agregadas: cuándo se fuerzan a disco antes de confirmar la escritura.
+     *
+     * @since 1.1
+     */
+    public enum Durabilidad {
+        /** No se fuerza a disco; la línea se confirma al escribirla en el archivo. */
+        NINGUNA,
+        /** Las líneas que llegan a la vez se escriben juntas y se fuerzan a disco una sola vez. */
+        POR_LOTES,
+        /** Cada línea se escribe y se fuerza a disco por separado. */
+        POR_ESCRITURA
+    }
+
+    /**
+     * Constructor por defecto, que trabaja sobre el archivo de categorías de la aplicación
+     * con durabilidad {@link Durabilidad#POR_LOTES} y sin ventana de espera.
+     *
+     * @throws UncheckedIOException Si no se puede leer el archivo.
+     * @since 1.1
+     */
+    public CategoriaDAO() {
+        this(Path.of(FILE_PATH));
+    }
+
+    /**
+     * Constructor que trabaja sobre el archivo de categorías de la aplicación con la durabilidad indicada.
+     *
+     * @param durabilidad Cuándo se fuerzan a disco las categorías agregadas.
+     * @param ventanaMs Tiempo que se espera a más categorías antes de forzar un lote a disco, o 0 para no esperar.
+     * @throws UncheckedIOException Si no se puede leer el archivo.
+     * @since 1.1
+     */
+    public CategoriaDAO(Durabilidad durabilidad, long ventanaMs) {
+        this(Path.of(FILE_PATH), durabilidad, ventanaMs);
+    }
+
+    /**
+     * Constructor con la ruta del archivo de categorías,
+     * con durabilidad {@link Durabilidad#POR_LOTES} y sin ventana de espera.
+     *
+     * @param path Ruta del archivo de categorías.
+     * @throws UncheckedIOException Si no se puede leer el archivo.
+     * @since 1.1
+     */
+    public CategoriaDAO(Path path) {
+        this(path, Durabilidad.POR_LOTES, 0);
+    }
+
+    /**
+     * Constructor con la ruta del archivo de categorías y la durabilidad de las escrituras.
+     *
+     * @param path Ruta del archivo de categorías.
+     * @param durabilidad Cuándo se fuerzan a disco las categorías agregadas.
+     * @param ventanaMs Tiempo que se espera a más categorías antes de forzar un lote a disco, o 0 para no esperar.
+     * @throws UncheckedIOException Si no se puede leer o abrir el archivo.
+     * @since 1.1
+     */
+    public CategoriaDAO(Path path, Durabilidad durabilidad, long ventanaMs) {
+        this.path = path;
+        this.coordinador = CoordinadorArchivo.para(path);
+        try {
+            // Se lee con el archivo bloqueado para no ver a medias un lote de otra instancia.
+            this.vista = coordinador.leer(() -> {
+                Vista inicial = proyectar(new ConcurrentHashMap<>(), coordinador.generacion());
+                indexar(inicial, 0);
+                return inicial;
+            });
+            this.escritor = new EscritorCategorias(path, coordinador, durabilidad, ventanaMs, this::publicarAnexo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se ha podido leer el archivo de categorías: " + path, e);
+        }
+    }
+
+    /**
+     * Obtiene la ruta del archivo de categorías.
+     *
+     * @return La ruta del archivo.
+     * @since 1.1
+     */
+    public Path obtenerRuta() {
+        return path;
+    }
+
+    /**
+     * Obtiene la fecha de última modificación del archivo cuando se proyectó por última vez.
+     *
+     * @return La fecha de última modificación, en milisegundos desde la época.
+     * @since 1.1
+     */
+    public long obtenerUltimaModificacion() {
+        return vista.ultimaModificacion().toMillis();
+    }
+
+    /**
+     * Obtiene el tamaño del archivo cuando se proyectó por última vez.
+     *
+     * @return El tamaño en bytes.
+     * @since 1.1
+     */
+    public long obtenerTamano() {
+        return vista.mapa().limit();
+    }
+
+    /**
+     * Obtiene la generación del archivo que corresponde a la proyección actual.
+     *
+     * @return La generación de la proyección.
+     * @since 1.1
+     */
+    public long obtenerGeneracion() {
+        return vista.generacion();
+    }
+
+    /**
+     * Indica si otra instancia (u otro DAO del mismo proceso) ha escrito el archivo después de proyectarlo.
+     * Solo compara la generación del archivo con la de la proyección, sin acceder al disco.
+     *
+     * @return {@code true} si la proyección está desactualizada.
+     * @since 1.1
+     */
+    public boolean estaDesactualizado() {
+        return coordinador.generacion() != vista.generacion();
+    }
+
     /**
      * Lee las categorías desde el archivo de texto y las retorna como una lista.
      *
      * @return Una lista de categorías leídas del archivo.
-     * @throws IOException Excepción lanzada si ha habido un error accediendo al fichero o a su contenido.
      * @since 1.0
      */
     public List<String> obtenerCategorias() {
-        // Se crea una lista de categorías, para guardar ahí las categorías leídas desde el fichero.
-        List<String> categorias = new ArrayList<>();
-        // Se crea un bufferedReader a partir de un FileReader del fichero.
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
-            String line;
-            // Si hay línea, se añade a la lista.
-            while ((line = reader.readLine()) != null) {
-                categorias.add(line);
+        return METRICAS.medir("obtenerCategorias", () -> {
+            // Se crea una lista de categorías, para guardar ahí las líneas leídas desde la proyección del fichero.
+            List<String> categorias = new ArrayList<>();
+            if (estaDesactualizado()) {
+                recargarSiHaCambiado();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return categorias;
+            MappedByteBuffer actual = vista.mapa();
+            int inicio = 0;
+            int fin = actual.limit();
+            for (int i = 0; i < fin; i++) {
+                // Si hay línea, se añade a la lista.
+                if (actual.get(i) == '\n') {
+                    categorias.add(decodificar(actual, inicio, i - inicio));
+                    inicio = i + 1;
+                }
+            }
+            if (inicio < fin) {
+                categorias.add(decodificar(actual, inicio, fin - inicio));
+            }
+            METRICAS.contarLeidos(fin);
+            return categorias;
+        });
+    }
+
+    /**
+     * Obtiene una categoría por su ID usando el índice, sin recorrer el archivo.
+     *
+     * @param categoriaId El ID de la categoría.
+     * @return Un Optional con la categoría encontrada, o vacío si no existe.
+     * @since 1.1
+     */
+    public Optional<Categoria> obtenerCategoriaPorId(long categoriaId) {
+        return METRICAS.medir("obtenerCategoriaPorId", () -> {
+            if (estaDesactualizado()) {
+                recargarSiHaCambiado();
+            }
+            Vista actual = vista;
+            Long entrada = actual.indice().get(categoriaId);
+            if (entrada == null) {
+                return Optional.empty();
+            }
+            int inicio = (int) (entrada >>> 32);
+            int longitud = (int) (long) entrada;
+            // Una categoría recién agregada entra en el índice justo después de publicarse la nueva vista,
+            // así que si su línea queda fuera de la vista leída, basta con volver a leerla.
+            MappedByteBuffer mapa = inicio + longitud <= actual.mapa().limit() ? actual.mapa() : vista.mapa();
+            String linea = decodificar(mapa, inicio, longitud);
+            METRICAS.contarLeidos(longitud);
+            return Optional.of(new Categoria(categoriaId, linea.substring(linea.indexOf(',') + 1)));
+        });
     }
 
     /**
      * Agrega una nueva categoría al archivo de texto.
+     * La llamada espera a que la línea esté escrita con la durabilidad configurada; al volver, la categoría
+     * ya se puede obtener por su ID.
      *
      * @param categoria La categoría que se desea agregar.
-     * @throws IOException Excepción lanzada si ha habido un error accediendo al fichero o a su contenido.
+     * @throws UncheckedIOException Si no se ha podido escribir la categoría.
      * @since 1.0
      */
     public void agregarCategoria(Categoria categoria) {
-        // Generamos la representación en string de la categoría a partir de su toString().
-        String categoriaStr = categoria.toString();
-
-        // Se crea un BufferedWriter a partir de un FileWriter del fichero, en modo append para no sobreescribir.
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH, true))) {
-            // Se escribe la categoría y un salto de línea.
-            writer.write(categoriaStr);
-            writer.newLine();
-        } catch (IOException e) {
-            e.printStackTrace();
+        METRICAS.medir("agregarCategoria", () -> {
+            // Generamos la representación en string de la categoría a partir de su toString().
+            String categoriaStr = categoria.toString();
+
+            try {
+                escritor.anotar(categoriaStr).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw new UncheckedIOException("No se ha podido guardar la categoría: " + categoriaStr, io);
+                }
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Escribe las categorías pendientes y cierra el archivo.
+     *
+     * @since 1.1
+     */
+    public void cerrar() {
+        escritor.cerrar();
+    }
+
+    /**
+     * Vuelve a proyectar el archivo y reconstruye el índice si el archivo ha cambiado desde la última proyección:
+     * porque otra instancia lo ha escrito (ha cambiado su generación) o porque se ha editado desde fuera de la
+     * aplicación (ha cambiado su tamaño o su fecha de modificación).
+     * Las categorías agregadas con {@link #agregarCategoria(Categoria)} desde este DAO no cuentan como cambio.
+     *
+     * @return {@code true} si el archivo había cambiado y se ha recargado.
+     * @since 1.1
+     */
+    public boolean recargarSiHaCambiado() {
+        return METRICAS.medir("recargarSiHaCambiado", () -> {
+            try {
+                // Se llama en cada consulta: si el archivo no ha cambiado, se responde sin bloquear nada.
+                if (!haCambiado(vista)) {
+                    return false;
+                }
+                // Se bloquea el archivo antes que el DAO, en el mismo orden que el escritor, para no provocar interbloqueos.
+                // Con los tipos explícitos, la IOException de leer no se propaga a la deducción de medir.
+                return coordinador.<Boolean, IOException>leer(() -> {
+                    cerrojo.lock();
+                    try {
+                        // Otro hilo puede haberlo recargado mientras este esperaba.
+                        if (!haCambiado(vista)) {
+                            return false;
+                        }
+                        // El índice nuevo se construye completo antes de publicar la vista.
+                        Vista nueva = proyectar(new ConcurrentHashMap<>(), coordinador.generacion());
+                        indexar(nueva, 0);
+                        vista = nueva;
+                        return true;
+                    } finally {
+                        cerrojo.unlock();
+                    }
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Publica las líneas que el escritor acaba de añadir: vuelve a proyectar el archivo y las indexa.
+     * La nueva vista se publica antes de indexar las líneas, para que nunca haya en el índice
+     * una posición que no exista en la vista publicada.
+     * Si otra instancia había escrito el archivo desde la última proyección, se reconstruye el índice completo.
+     * Se llama con el archivo bloqueado por el escritor.
+     *
+     * @param inicio Posición en la que empieza la primera línea añadida.
+     * @param generacionAnterior Generación del archivo antes de escribir estas líneas.
+     * @throws IOException Si ocurre un error al proyectar el archivo.
+     * @since 1.1
+     */
+    private void publicarAnexo(long inicio, long generacionAnterior) throws IOException {
+        cerrojo.lock();
+        try {
+            Vista anterior = vista;
+            if (anterior.generacion() == generacionAnterior) {
+                vista = proyectar(anterior.indice(), generacionAnterior + 1);
+                indexar(vista, (int) inicio);
+            } else {
+                Vista nueva = proyectar(new ConcurrentHashMap<>(), generacionAnterior + 1);
+                indexar(nueva, 0);
+                vista = nueva;
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Indica si el archivo ha cambiado desde que se proyectó una vista: si otra instancia lo ha escrito (ha cambiado
+     * su generación, que es una lectura de memoria) o si se ha editado desde fuera (ha cambiado su tamaño o su fecha).
+     *
+     * @param actual La vista a comparar.
+     * @return {@code true} si hay que volver a proyectar el archivo.
+     * @throws IOException Si no se pueden leer los atributos del archivo.
+     * @since 1.1
+     */
+    private boolean haCambiado(Vista actual) throws IOException {
+        return coordinador.generacion() != actual.generacion() || Files.size(path) != actual.mapa().limit()
+                || !Files.getLastModifiedTime(path).equals(actual.ultimaModificacion());
+    }
+
+    /**
+     * Proyecta el archivo completo en memoria.
+     *
+     * @param indice Índice que acompañará a la proyección.
+     * @param generacion Generación del archivo que se está proyectando.
+     * @return La vista con la nueva proyección.
+     * @throws IOException Si ocurre un error al abrir o proyectar el archivo.
+     * @since 1.1
+     */
+    private Vista proyectar(Map<Long, Long> indice, long generacion) throws IOException {
+        try (FileChannel canal = FileChannel.open(path, StandardOpenOption.READ)) {
+            FileTime ultimaModificacion = Files.getLastModifiedTime(path);
+            // La proyección sigue siendo válida después de cerrar el canal.
+            return new Vista(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()), indice, ultimaModificacion,
+                    generacion);
+        }
+    }
+
+    /**
+     * Añade al índice de una vista las líneas que hay desde una posición hasta el final de su proyección.
+     * Las líneas que no empiezan por un ID numérico (como la cabecera) se ignoran.
+     *
+     * @param destino La vista cuyo índice se actualiza.
+     * @param desde Posición de inicio de la primera línea.
+     * @since 1.1
+     */
+    private static void indexar(Vista destino, int desde) {
+        MappedByteBuffer actual = destino.mapa();
+        Map<Long, Long> indice = destino.indice();
+        int hasta = actual.limit();
+        METRICAS.contarLeidos(hasta - desde);
+        int inicio = desde;
+        for (int i = desde; i <= hasta; i++) {
+            if (i == hasta || actual.get(i) == '\n') {
+                int longitud = i - inicio;
+                // Se descarta el retorno de carro de los archivos con saltos de línea de Windows.
+                if (longitud > 0 && actual.get(inicio + longitud - 1) == '\r') {
+                    longitud--;
+                }
+                Long id = leerId(actual, inicio, longitud);
+                if (id != null) {
+                    indice.put(id, ((long) inicio << 32) | longitud);
+                }
+                inicio = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Lee el ID numérico que hay antes de la primera coma de una línea.
+     *
+     * @param buffer La proyección del archivo.
+     * @param inicio Posición de inicio de la línea.
+     * @param longitud Longitud de la línea en bytes.
+     * @return El ID de la línea, o {@code null} si la línea no empieza por un número seguido de una coma.
+     * @since 1.1
+     */
+    private static Long leerId(ByteBuffer buffer, int inicio, int longitud) {
+        long id = 0;
+        int digitos = 0;
+        for (int i = inicio; i < inicio + longitud; i++) {
+            byte b = buffer.get(i);
+            if (b == ',') {
+                return digitos > 0 ? id : null;
+            }
+            if (b < '0' || b > '9') {
+                return null;
+            }
+            id = id * 10 + (b - '0');
+            digitos++;
+        }
+        return null;
+    }
+
+    /**
+     * Decodifica como UTF-8 un fragmento de la proyección.
+     *
+     * @param buffer La proyección del archivo.
+     * @param inicio Posición de inicio del fragmento.
+     * @param longitud Longitud del fragmento en bytes.
+     * @return El texto decodificado, sin el retorno de carro final si lo hay.
+     * @since 1.1
+     */
+    private static String decodificar(ByteBuffer buffer, int inicio, int longitud) {
+        if (longitud > 0 && buffer.get(inicio + longitud - 1) == '\r') {
+            longitud--;
         }
+        byte[] bytes = new byte[longitud];
+        buffer.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coordina el acceso a un archivo de datos entre varios procesos (varias instancias de la aplicación en la misma
+ * máquina) y entre los hilos de un mismo proceso.
+ * <p>
+ * Junto a cada archivo se guarda un archivo {@code <nombre>.gen} con un número de generación (8 bytes) que se
+ * incrementa cada vez que un proceso termina una escritura. Las escrituras se hacen con un bloqueo exclusivo
+ * ({@link FileChannel#lock}) sobre ese archivo, y los lectores comparan la generación con la de su copia en memoria
+ * para saber si tienen que recargarla. Como el archivo de generación está mapeado en memoria, esa comparación es
+ * una simple lectura de memoria, sin llamadas al sistema.
+ * <p>
+ * Hay un único coordinador por archivo y proceso, porque Java no permite que un mismo proceso tenga dos bloqueos
+ * solapados sobre el mismo archivo.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+class CoordinadorArchivo {
+
+    private static final Map<Path, CoordinadorArchivo> COORDINADORES = new ConcurrentHashMap<>();
+
+    // El número de generación ocupa los 8 primeros bytes y es la región que se bloquea para leer y escribir.
+    private static final int BYTES_GENERACION = Long.BYTES;
+
+    // Byte que bloquea en exclusiva, durante toda su vida, la instancia que reserva el archivo.
+    private static final long POSICION_RESERVA = BYTES_GENERACION;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer generacion;
+
+    // Los hilos del proceso se turnan con este cerrojo antes de pedir el bloqueo del archivo.
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private FileLock reserva;
+
+    /**
+     * Acción que se ejecuta con el archivo bloqueado.
+     *
+     * @param <T> Tipo del resultado.
+     * @param <E> Tipo de la excepción que puede lanzar.
+     */
+    @FunctionalInterface
+    interface Accion<T, E extends Exception> {
+        T ejecutar() throws E;
+    }
+
+    private CoordinadorArchivo(Path archivo) throws IOException {
+        Path genPath = archivo.resolveSibling(archivo.getFileName() + ".gen");
+        this.canal = FileChannel.open(genPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Si el archivo es nuevo, el mapeo lo amplía a 8 bytes a cero: la generación inicial es 0.
+        this.generacion = canal.map(FileChannel.MapMode.READ_WRITE, 0, BYTES_GENERACION);
+    }
+
+    /**
+     * Obtiene el coordinador de un archivo, creándolo la primera vez.
+     *
+     * @param archivo Ruta del archivo de datos.
+     * @return El coordinador del archivo, compartido por todo el proceso.
+     * @throws UncheckedIOException Si no se puede abrir el archivo de generación.
+     * @since 1.1
+     */
+    static CoordinadorArchivo para(Path archivo) {
+        return COORDINADORES.computeIfAbsent(archivo.toAbsolutePath().normalize(), ruta -> {
+            try {
+                return new CoordinadorArchivo(ruta);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se ha podido abrir el archivo de generación de " + ruta, e);
+            }
+        });
+    }
+
+    /**
+     * Obtiene la generación actual del archivo, tal y como la ha dejado el último proceso que lo ha escrito.
+     * No bloquea ni accede al disco.
+     *
+     * @return La generación actual.
+     * @since 1.1
+     */
+    long generacion() {
+        return generacion.getLong(0);
+    }
+
+    /**
+     * Ejecuta una escritura con el archivo bloqueado en exclusiva para todos los procesos
+     * y, al terminar, incrementa la generación.
+     * Si el hilo ya tiene el archivo bloqueado, la acción se ejecuta sin volver a bloquearlo.
+     *
+     * @param accion La escritura.
+     * @return El resultado de la acción.
+     * @throws E Si la acción falla. En ese caso también se incrementa la generación, por si llegó a escribir algo.
+     * @throws IOException Si no se puede bloquear el archivo.
+     * @since 1.1
+     */
+    <T, E extends Exception> T escribir(Accion<T, E> accion) throws E, IOException {
+        return bloqueado(false, accion);
+    }
+
+    /**
+     * Ejecuta una lectura con el archivo bloqueado en modo compartido, de modo que ningún proceso puede escribirlo
+     * mientras tanto. Solo hace falta para lecturas que no toleran ver una escritura a medias.
+     * Si el hilo ya tiene el archivo bloqueado, la acción se ejecuta sin volver a bloquearlo.
+     *
+     * @param accion La lectura.
+     * @return El resultado de la acción.
+     * @throws E Si la acción falla.
+     * @throws IOException Si no se puede bloquear el archivo.
+     * @since 1.1
+     */
+    <T, E extends Exception> T leer(Accion<T, E> accion) throws E, IOException {
+        return bloqueado(true, accion);
+    }
+
+    /**
+     * Reserva el archivo para esta instancia durante toda su vida, de modo que ninguna otra pueda reservarlo.
+     * Lo usan los modos que guardan los datos en memoria y los vuelcan más tarde, porque dos instancias así
+     * se sobrescribirían los cambios.
+     *
+     * @return {@code true} si se ha reservado, o {@code false} si ya lo tiene reservado otra instancia o este mismo proceso.
+     * @throws IOException Si ocurre un error al bloquear el archivo.
+     * @since 1.1
+     */
+    synchronized boolean reservar() throws IOException {
+        if (reserva != null) {
+            return false;
+        }
+        reserva = canal.tryLock(POSICION_RESERVA, 1, false);
+        return reserva != null;
+    }
+
+    /**
+     * Libera la reserva hecha con {@link #reservar()}.
+     *
+     * @since 1.1
+     */
+    synchronized void liberar() {
+        if (reserva == null) {
+            return;
+        }
+        try {
+            reserva.release();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        reserva = null;
+    }
+
+    /**
+     * Ejecuta una acción con la región de la generación bloqueada.
+     *
+     * @param compartido Si es {@code true}, el bloqueo es compartido (lectura) y no se incrementa la generación.
+     * @param accion La acción a ejecutar.
+     * @return El resultado de la acción.
+     * @throws E Si la acción falla.
+     * @throws IOException Si no se puede bloquear el archivo.
+     * @since 1.1
+     */
+    private <T, E extends Exception> T bloqueado(boolean compartido, Accion<T, E> accion) throws E, IOException {
+        cerrojo.lock();
+        try {
+            // Un proceso no puede volver a bloquear una región que ya tiene bloqueada.
+            if (cerrojo.getHoldCount() > 1) {
+                return accion.ejecutar();
+            }
+            FileLock bloqueo = canal.lock(0, BYTES_GENERACION, compartido);
+            try {
+                return accion.ejecutar();
+            } finally {
+                if (!compartido) {
+                    generacion.putLong(0, generacion.getLong(0) + 1);
+                }
+                bloqueo.release();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+}
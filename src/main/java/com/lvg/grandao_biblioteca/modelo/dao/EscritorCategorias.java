@@ -0,0 +1,234 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Escritor único de las líneas que se añaden al archivo de categorías.
+ * <p>
+ * Las peticiones de escritura se encolan y un solo hilo las escribe al final del archivo mediante un
+ * {@link FileChannel}. Las líneas que se acumulan mientras se escribe (y, opcionalmente, durante una ventana
+ * de espera) se agrupan en una sola escritura y, según la durabilidad, un solo {@link FileChannel#force(boolean)}.
+ * Cada petición se confirma cuando su línea está escrita con la durabilidad elegida.
+ * <p>
+ * Cada lote se escribe con el archivo bloqueado a través de su {@link CoordinadorArchivo}, así que las líneas de
+ * varias instancias de la aplicación nunca se mezclan, y cada lote incrementa la generación del archivo.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+class EscritorCategorias {
+
+    // Límite de líneas por lote, para no retrasar demasiado la confirmación de las primeras.
+    private static final int MAX_LOTE = 1024;
+
+    // Bytes escritos, en las métricas del almacén de categorías.
+    private static final MetricasAlmacen METRICAS = new MetricasAlmacen("texto");
+
+    private final FileChannel canal;
+    private final CoordinadorArchivo coordinador;
+    private final CategoriaDAO.Durabilidad durabilidad;
+    private final long ventanaNanos;
+    private final AlEscribir alEscribir;
+    private final BlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final Thread hilo;
+    // Las líneas se encolan con el bloqueo de lectura y el escritor se cierra con el de escritura: así ninguna
+    // línea entra en la cola después de que el hilo escritor haya visto el cierre con la cola vacía y haya terminado.
+    private final ReentrantReadWriteLock cierre = new ReentrantReadWriteLock();
+    private volatile boolean cerrado;
+
+    /**
+     * Acción que se ejecuta después de escribir un lote y antes de confirmarlo, todavía con el archivo bloqueado.
+     */
+    @FunctionalInterface
+    interface AlEscribir {
+
+        /**
+         * @param inicio Posición del archivo en la que empieza la primera línea del lote.
+         * @param generacionAnterior Generación del archivo antes de escribir el lote; al terminar será la siguiente.
+         * @throws IOException Si ocurre un error al procesar el lote escrito.
+         */
+        void escrito(long inicio, long generacionAnterior) throws IOException;
+    }
+
+    /**
+     * Línea pendiente de escribir junto con la confirmación que se completa al escribirla.
+     */
+    private record Pendiente(byte[] linea, CompletableFuture<Void> confirmacion) {}
+
+    /**
+     * Abre el archivo para añadir líneas y arranca el hilo escritor.
+     *
+     * @param path Ruta del archivo de categorías.
+     * @param coordinador Coordinador del archivo de categorías.
+     * @param durabilidad Cuándo se fuerzan las escrituras a disco.
+     * @param ventanaMs Tiempo que se espera a más líneas antes de escribir un lote, o 0 para no esperar.
+     *                  Solo se usa con {@link CategoriaDAO.Durabilidad#POR_LOTES}.
+     * @param alEscribir Acción que se ejecuta después de escribir cada lote.
+     * @throws IOException Si no se puede abrir el archivo.
+     * @since 1.1
+     */
+    EscritorCategorias(Path path, CoordinadorArchivo coordinador, CategoriaDAO.Durabilidad durabilidad, long ventanaMs,
+                       AlEscribir alEscribir) throws IOException {
+        // No se abre en modo APPEND porque hace falta leer el último byte; la posición se coloca al final
+        // del archivo en cada lote, con el archivo ya bloqueado.
+        this.canal = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.coordinador = coordinador;
+        this.durabilidad = durabilidad;
+        this.ventanaNanos = durabilidad == CategoriaDAO.Durabilidad.POR_LOTES ? TimeUnit.MILLISECONDS.toNanos(ventanaMs) : 0;
+        this.alEscribir = alEscribir;
+        this.hilo = new Thread(this::ejecutar, "categorias-escritor");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Encola una línea para añadirla al final del archivo.
+     *
+     * @param linea La línea, sin el salto de línea final.
+     * @return Una confirmación que se completa cuando la línea está escrita con la durabilidad elegida,
+     *         o que falla con la {@link IOException} de la escritura.
+     * @since 1.1
+     */
+    CompletableFuture<Void> anotar(String linea) {
+        CompletableFuture<Void> confirmacion = new CompletableFuture<>();
+        byte[] bytes = (linea + "\n").getBytes(StandardCharsets.UTF_8);
+        cierre.readLock().lock();
+        try {
+            if (cerrado) {
+                confirmacion.completeExceptionally(new IOException("El escritor de categorías está cerrado"));
+                return confirmacion;
+            }
+            cola.add(new Pendiente(bytes, confirmacion));
+        } finally {
+            cierre.readLock().unlock();
+        }
+        return confirmacion;
+    }
+
+    /**
+     * Escribe las líneas que queden pendientes, detiene el hilo escritor y cierra el archivo.
+     *
+     * @since 1.1
+     */
+    void cerrar() {
+        cierre.writeLock().lock();
+        try {
+            cerrado = true;
+        } finally {
+            cierre.writeLock().unlock();
+        }
+        try {
+            hilo.join();
+            canal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: toma lotes de la cola y los escribe hasta que el escritor se cierra y la cola se vacía.
+     *
+     * @since 1.1
+     */
+    private void ejecutar() {
+        List<Pendiente> lote = new ArrayList<>();
+        try {
+            while (!cerrado || !cola.isEmpty()) {
+                Pendiente primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                // Con ventana, se espera un poco a que lleguen más líneas para el mismo forzado a disco.
+                long limite = System.nanoTime() + ventanaNanos;
+                long restante = ventanaNanos;
+                while (restante > 0 && lote.size() < MAX_LOTE) {
+                    Pendiente siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                    restante = limite - System.nanoTime();
+                }
+                // Sin ventana, el lote son las líneas que se han acumulado mientras se escribía el anterior.
+                cola.drainTo(lote, MAX_LOTE - lote.size());
+
+                if (durabilidad == CategoriaDAO.Durabilidad.POR_ESCRITURA) {
+                    for (Pendiente pendiente : lote) {
+                        escribir(List.of(pendiente));
+                    }
+                } else {
+                    escribir(lote);
+                }
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Escribe un lote de líneas con una sola escritura, lo fuerza a disco si la durabilidad lo pide y confirma
+     * todas sus líneas. Si algo falla, todas las líneas del lote se confirman con el error.
+     *
+     * @param lote Las líneas a escribir.
+     * @since 1.1
+     */
+    private void escribir(List<Pendiente> lote) {
+        try {
+            coordinador.escribir(() -> {
+                // Otra instancia puede haber añadido líneas desde el lote anterior.
+                long posicion = canal.size();
+                canal.position(posicion);
+                // Si la última línea no termina en salto de línea, se añade antes de las categorías nuevas.
+                boolean faltaSalto = false;
+                if (posicion > 0) {
+                    ByteBuffer ultimo = ByteBuffer.allocate(1);
+                    canal.read(ultimo, posicion - 1);
+                    faltaSalto = ultimo.get(0) != '\n';
+                }
+
+                List<ByteBuffer> buffers = new ArrayList<>(lote.size() + 1);
+                if (faltaSalto) {
+                    buffers.add(ByteBuffer.wrap(new byte[] {'\n'}));
+                }
+                for (Pendiente pendiente : lote) {
+                    buffers.add(ByteBuffer.wrap(pendiente.linea()));
+                }
+                ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+                ByteBuffer ultima = array[array.length - 1];
+                long escritos = 0;
+                while (ultima.hasRemaining()) {
+                    escritos += canal.write(array);
+                }
+                METRICAS.contarEscritos(escritos);
+                if (durabilidad != CategoriaDAO.Durabilidad.NINGUNA) {
+                    canal.force(false);
+                }
+                alEscribir.escrito(posicion + (faltaSalto ? 1 : 0), coordinador.generacion());
+                return null;
+            });
+            for (Pendiente pendiente : lote) {
+                pendiente.confirmacion().complete(null);
+            }
+        } catch (IOException e) {
+            for (Pendiente pendiente : lote) {
+                pendiente.confirmacion().completeExceptionally(e);
+            }
+        }
+    }
+}
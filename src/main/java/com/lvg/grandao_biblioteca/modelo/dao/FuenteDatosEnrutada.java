@@ -0,0 +1,97 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fuente de datos que reparte las conexiones entre la base de datos primaria y una réplica de lectura:
+ * las transacciones de solo lectura ({@code @Transactional(readOnly = true)}) usan la réplica y todo lo demás,
+ * incluido lo que se ejecuta fuera de una transacción, la primaria.
+ * Si la réplica va demasiado retrasada o no da conexiones, las lecturas también van a la primaria.
+ * <p>
+ * El gestor de transacciones pide la conexión al empezar la transacción, antes de marcarla como de solo lectura,
+ * así que esta fuente debe usarse envuelta en un {@code LazyConnectionDataSourceProxy}, que no la pide hasta la
+ * primera sentencia.
+ * <p>
+ * Cada vez que entrega una conexión de la réplica ejecuta una acción, que la configuración usa para que la
+ * transacción no guarde en la caché de segundo nivel lo que lee de ella (ver {@code ConfiguracionReplica}).
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class FuenteDatosEnrutada extends AbstractDataSource {
+
+    private final DataSource primaria;
+    private final DataSource replica;
+    private final MonitorReplica monitor;
+    private final Runnable alUsarReplica;
+
+    /**
+     * Constructor.
+     *
+     * @param primaria Pool de conexiones de la base de datos primaria.
+     * @param replica Pool de conexiones de la réplica de lectura.
+     * @param monitor Monitor del retraso de la réplica.
+     * @since 1.1
+     */
+    public FuenteDatosEnrutada(DataSource primaria, DataSource replica, MonitorReplica monitor) {
+        this(primaria, replica, monitor, () -> {});
+    }
+
+    /**
+     * Constructor con una acción que se ejecuta, en el hilo de la transacción, cada vez que se entrega una conexión
+     * de la réplica.
+     *
+     * @param primaria Pool de conexiones de la base de datos primaria.
+     * @param replica Pool de conexiones de la réplica de lectura.
+     * @param monitor Monitor del retraso de la réplica.
+     * @param alUsarReplica Acción que se ejecuta al entregar una conexión de la réplica.
+     * @since 1.1
+     */
+    public FuenteDatosEnrutada(DataSource primaria, DataSource replica, MonitorReplica monitor, Runnable alUsarReplica) {
+        this.primaria = primaria;
+        this.replica = replica;
+        this.monitor = monitor;
+        this.alUsarReplica = alUsarReplica;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!usarReplica()) {
+            return primaria.getConnection();
+        }
+        try {
+            Connection conexion = replica.getConnection();
+            alUsarReplica.run();
+            return conexion;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            monitor.marcarNoDisponible();
+            return primaria.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String contrasena) throws SQLException {
+        if (!usarReplica()) {
+            return primaria.getConnection(usuario, contrasena);
+        }
+        try {
+            Connection conexion = replica.getConnection(usuario, contrasena);
+            alUsarReplica.run();
+            return conexion;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            monitor.marcarNoDisponible();
+            return primaria.getConnection(usuario, contrasena);
+        }
+    }
+
+    private boolean usarReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitor.estaDisponible();
+    }
+}
@@ -1,27 +1,63 @@
 package com.lvg.grandao_biblioteca.modelo.dao;
 
 import com.lvg.grandao_biblioteca.modelo.dto.Libro;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para realizar operaciones CRUD sobre los libros en la base de datos.
  * Extiende de JpaRepository para manejar la persistencia en una base de datos relacional.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 public interface LibroRepository extends JpaRepository<Libro, Integer> {
 
     /**
      * Busca un libro por su ID.
+     * Se resuelve con {@link #findById(Object)}, que consulta antes la caché de segundo nivel;
+     * una consulta derivada iría siempre a la base de datos.
      *
      * @param id El ID del libro a buscar.
      * @return Un Optional con el libro encontrado, o vacío si no se encuentra.
      * @since 1.0
      */
-    Optional<Libro> findLibroById(Integer id);
+    default Optional<Libro> findLibroById(Integer id) {
+        return findById(id);
+    }
+
+    /**
+     * Obtiene todos los libros. El resultado (los IDs) se guarda en la caché de consultas, en la región
+     * {@code libros-consultas}, y los libros en la caché de entidades; Hibernate invalida la consulta en cuanto
+     * cambia la tabla Libros.
+     *
+     * @return Todos los libros.
+     * @since 1.1
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "libros-consultas")
+    })
+    List<Libro> findAll();
+
+    /**
+     * Busca un libro por su ISBN, usando el índice único de la columna {@code isbn}.
+     *
+     * @param isbn El ISBN-13 canónico, como se guarda (ver {@link Libro#setIsbn(String)}).
+     * @return Un Optional con el libro encontrado, o vacío si no se encuentra.
+     * @since 1.1
+     */
+    Optional<Libro> findByIsbn(String isbn);
 
     /**
      * Elimina un libro por su ID.
@@ -30,4 +66,68 @@ public interface LibroRepository extends JpaRepository<Libro, Integer> {
      * @since 1.0
      */
     void deleteLibroById(Integer id);
+
+    /**
+     * Cuenta los libros y suma su cantidad, agrupando por género.
+     * Solo se usa al arrancar, para cargar los recuentos que después se mantienen en memoria.
+     *
+     * @return Una fila por género con el género, el número de libros y la suma de la cantidad.
+     * @since 1.1
+     */
+    @Query("SELECT l.genero, COUNT(l), COALESCE(SUM(l.cantidad), 0) FROM Libro l GROUP BY l.genero")
+    List<Object[]> contarPorGenero();
+
+    /**
+     * Busca los libros con un ID mayor que el indicado, ordenados por ID.
+     * La consulta recorre el índice de la clave primaria desde ese ID, así que cuesta lo mismo
+     * sea cual sea la página, a diferencia de una consulta con OFFSET.
+     *
+     * @param id El ID a partir del cual se buscan libros (sin incluirlo).
+     * @param limite Número máximo de libros a devolver.
+     * @return Los libros encontrados, ordenados por ID.
+     * @since 1.1
+     */
+    List<Libro> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limite);
+
+    /**
+     * Obtiene el ID, el título y el género de los libros con un ID mayor que el indicado, ordenados por ID.
+     * Se usa para construir el índice de búsqueda por bloques, sin cargar las entidades completas.
+     *
+     * @param id El ID a partir del cual se buscan libros (sin incluirlo).
+     * @param limite Número máximo de libros a devolver.
+     * @return Una fila por libro con el ID, el título y el género.
+     * @since 1.1
+     */
+    @Query("SELECT l.id, l.titulo, l.genero FROM Libro l WHERE l.id > :id ORDER BY l.id")
+    List<Object[]> obtenerTextosDesde(@Param("id") Integer id, Limit limite);
+
+    /**
+     * Obtiene el ID y el ISBN de los libros con un ID mayor que el indicado, ordenados por ID.
+     * Se usa para construir el filtro de ISBN por bloques, sin cargar las entidades completas.
+     *
+     * @param id El ID a partir del cual se buscan libros (sin incluirlo).
+     * @param limite Número máximo de libros a devolver.
+     * @return Una fila por libro con el ID y el ISBN.
+     * @since 1.1
+     */
+    @Query("SELECT l.id, l.isbn FROM Libro l WHERE l.id > :id ORDER BY l.id")
+    List<Object[]> obtenerIsbnDesde(@Param("id") Integer id, Limit limite);
+
+    /**
+     * Recorre todos los libros, ordenados por ID, sin cargarlos todos en memoria.
+     * El controlador JDBC trae las filas de 1000 en 1000 y Hibernate no guarda copias para detectar cambios,
+     * porque los libros se cargan como solo lectura. Tampoco se guardan en la caché de segundo nivel, para que
+     * una exportación no desaloje los libros más consultados. El Stream debe consumirse dentro de una transacción
+     * y cerrarse.
+     *
+     * @return Un Stream con todos los libros.
+     * @since 1.1
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Libro> streamAllByOrderByIdAsc();
 }
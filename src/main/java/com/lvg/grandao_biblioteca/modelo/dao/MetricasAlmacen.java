@@ -0,0 +1,170 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de un almacén de datos (MariaDB, MongoDB, el XML de usuarios o el texto de categorías), etiquetadas
+ * con el almacén ({@code almacen}) y, las de operaciones, con la operación ({@code operacion}):
+ * <ul>
+ *     <li>{@value #OPERACIONES}: tiempo de cada operación, con histograma para calcular percentiles.</li>
+ *     <li>{@value #ERRORES}: operaciones que han terminado con una excepción, etiquetadas también con su clase.</li>
+ *     <li>{@value #LECTURAS} y {@value #ESCRITURAS}: bytes leídos y escritos en los almacenes de archivos.</li>
+ * </ul>
+ * Se registran en el registro global de Micrometer, al que Spring Boot añade el suyo, para que los DAO no
+ * dependan de Spring; fuera de la aplicación (por ejemplo, en los tests) no se publican en ningún sitio.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class MetricasAlmacen {
+
+    /** Nombre del temporizador de operaciones. */
+    public static final String OPERACIONES = "almacen.operaciones";
+    /** Nombre del contador de errores. */
+    public static final String ERRORES = "almacen.errores";
+    /** Nombre del contador de bytes leídos. */
+    public static final String LECTURAS = "almacen.lecturas";
+    /** Nombre del contador de bytes escritos. */
+    public static final String ESCRITURAS = "almacen.escrituras";
+
+    /**
+     * Operación de un almacén que se mide con {@link #medir(String, Accion)}.
+     *
+     * @param <T> Tipo del resultado.
+     * @param <E> Tipo de una excepción que puede lanzar.
+     * @param <F> Tipo de otra excepción que puede lanzar. Si la operación solo lanza una, se deduce
+     *            {@link RuntimeException}; si lanza dos, hay que indicar los tipos al llamar a {@code medir}.
+     */
+    @FunctionalInterface
+    public interface Accion<T, E extends Exception, F extends Exception> {
+        T ejecutar() throws E, F;
+    }
+
+    private final String almacen;
+    private final Counter lecturas;
+    private final Counter escrituras;
+    private final Map<String, Timer> temporizadores = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param almacen Nombre del almacén, que se usa como etiqueta.
+     * @since 1.1
+     */
+    public MetricasAlmacen(String almacen) {
+        this.almacen = almacen;
+        this.lecturas = Counter.builder(LECTURAS).baseUnit("bytes").tag("almacen", almacen)
+                .register(Metrics.globalRegistry);
+        this.escrituras = Counter.builder(ESCRITURAS).baseUnit("bytes").tag("almacen", almacen)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Ejecuta una operación y registra su duración, haya terminado bien o con un error; si termina con una excepción,
+     * también la cuenta.
+     *
+     * @param operacion Nombre de la operación.
+     * @param accion La operación.
+     * @return El resultado de la operación.
+     * @throws E Si la operación lanza una excepción de ese tipo.
+     * @throws F Si la operación lanza una excepción de ese tipo.
+     * @since 1.1
+     */
+    public <T, E extends Exception, F extends Exception> T medir(String operacion, Accion<T, E, F> accion) throws E, F {
+        long comienzo = System.nanoTime();
+        try {
+            return accion.ejecutar();
+        } catch (Exception e) {
+            registrarError(operacion, e);
+            throw e;
+        } finally {
+            registrar(operacion, System.nanoTime() - comienzo);
+        }
+    }
+
+    /**
+     * Registra la duración de una operación, haya terminado bien o con un error.
+     *
+     * @param operacion Nombre de la operación.
+     * @param nanos Duración en nanosegundos.
+     * @since 1.1
+     */
+    public void registrar(String operacion, long nanos) {
+        temporizadores.computeIfAbsent(operacion, clave -> Timer.builder(OPERACIONES)
+                .tag("almacen", almacen)
+                .tag("operacion", clave)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cuenta una operación que ha terminado con una excepción.
+     *
+     * @param operacion Nombre de la operación.
+     * @param error La excepción.
+     * @since 1.1
+     */
+    public void registrarError(String operacion, Throwable error) {
+        Metrics.counter(ERRORES, "almacen", almacen, "operacion", operacion,
+                "excepcion", error.getClass().getSimpleName()).increment();
+    }
+
+    /**
+     * Suma bytes leídos del almacén.
+     *
+     * @param bytes Número de bytes.
+     * @since 1.1
+     */
+    public void contarLeidos(long bytes) {
+        lecturas.increment(bytes);
+    }
+
+    /**
+     * Suma bytes escritos en el almacén.
+     *
+     * @param bytes Número de bytes.
+     * @since 1.1
+     */
+    public void contarEscritos(long bytes) {
+        escrituras.increment(bytes);
+    }
+
+    /**
+     * Envuelve un flujo de entrada para contar los bytes que se leen realmente de él, por ejemplo cuando la
+     * lectura se detiene antes del final del archivo.
+     *
+     * @param entrada El flujo a envolver.
+     * @return Un flujo que cuenta los bytes leídos.
+     * @since 1.1
+     */
+    public InputStream contarLectura(InputStream entrada) {
+        return new FilterInputStream(entrada) {
+            @Override
+            public int read() throws IOException {
+                int leido = super.read();
+                if (leido >= 0) {
+                    lecturas.increment();
+                }
+                return leido;
+            }
+
+            @Override
+            public int read(byte[] destino, int desde, int longitud) throws IOException {
+                int leidos = super.read(destino, desde, longitud);
+                if (leidos > 0) {
+                    lecturas.increment(leidos);
+                }
+                return leidos;
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprueba periódicamente cuánto va por detrás la réplica de lectura, para que {@link FuenteDatosEnrutada}
+ * deje de enviarle lecturas si el retraso supera el máximo o si no responde.
+ * El retraso se obtiene con una consulta configurable; con MariaDB es {@code SHOW REPLICA STATUS}, que devuelve
+ * la columna {@code Seconds_Behind_Master} (nula si la replicación está parada y sin filas si no es una réplica).
+ * En esos dos casos la réplica se considera no disponible.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class MonitorReplica implements AutoCloseable {
+
+    private final DataSource replica;
+    private final String consulta;
+    private final String columna;
+    private final long maximoSegundos;
+    private final ScheduledExecutorService comprobador;
+    private volatile boolean disponible;
+
+    private MonitorReplica(DataSource replica, String consulta, String columna, long maximoSegundos) {
+        this.replica = replica;
+        this.consulta = consulta;
+        this.columna = columna;
+        this.maximoSegundos = maximoSegundos;
+        this.comprobador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "monitor-replica");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Crea el monitor y hace una primera comprobación antes de devolverlo, así que la réplica solo se usa desde
+     * el principio si ya está al día. Las comprobaciones periódicas se programan después, cuando el monitor ya
+     * está construido.
+     *
+     * @param replica Pool de conexiones de la réplica.
+     * @param consulta Consulta que devuelve el retraso de la réplica en segundos.
+     * @param columna Columna del resultado con el retraso.
+     * @param maximoSegundos Retraso máximo, en segundos, con el que se siguen enviando lecturas a la réplica.
+     * @param intervaloMs Milisegundos entre comprobaciones.
+     * @return El monitor, ya comprobado y con las comprobaciones periódicas en marcha.
+     * @since 1.1
+     */
+    public static MonitorReplica iniciar(DataSource replica, String consulta, String columna, long maximoSegundos,
+                                         long intervaloMs) {
+        MonitorReplica monitor = new MonitorReplica(replica, consulta, columna, maximoSegundos);
+        monitor.comprobar();
+        monitor.comprobador.scheduleWithFixedDelay(monitor::comprobar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        return monitor;
+    }
+
+    /**
+     * Indica si se pueden enviar lecturas a la réplica.
+     *
+     * @return {@code true} si la última comprobación fue correcta y no se ha marcado como no disponible después.
+     * @since 1.1
+     */
+    public boolean estaDisponible() {
+        return disponible;
+    }
+
+    /**
+     * Deja de enviar lecturas a la réplica hasta la siguiente comprobación correcta.
+     * Se llama cuando no se ha podido obtener una conexión de la réplica.
+     *
+     * @since 1.1
+     */
+    public void marcarNoDisponible() {
+        disponible = false;
+    }
+
+    /**
+     * Consulta el retraso de la réplica y actualiza su disponibilidad.
+     *
+     * @since 1.1
+     */
+    void comprobar() {
+        boolean ahora;
+        try (Connection conexion = replica.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(consulta)) {
+            if (resultado.next()) {
+                long retraso = resultado.getLong(columna);
+                ahora = !resultado.wasNull() && retraso <= maximoSegundos;
+            } else {
+                ahora = false;
+            }
+        } catch (SQLException e) {
+            // Solo se informa al dejar de estar disponible, no en cada comprobación fallida.
+            if (disponible) {
+                e.printStackTrace();
+            }
+            ahora = false;
+        }
+        disponible = ahora;
+    }
+
+    /**
+     * Detiene las comprobaciones.
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() {
+        comprobador.shutdownNow();
+    }
+}
@@ -7,80 +7,865 @@ import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.Unmarshaller;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * DAO (Data Access Object) que maneja la lectura y escritura de usuarios en un archivo XML.
  * Utiliza JAXB para convertir entre objetos Java y representación XML.
+ * <p>
+ * Puede trabajar en tres modos:
+ * <ul>
+ *     <li>{@link ModoAlmacen#DIRECTO}: cada operación lee (y en su caso reescribe) el archivo XML.</li>
+ *     <li>{@link ModoAlmacen#MEMORIA}: el archivo se carga una sola vez en un mapa concurrente indexado por
+ *     {@code usuarioId}, las lecturas se sirven desde memoria y los cambios se vuelcan en segundo plano
+ *     escribiendo un archivo temporal que después se renombra de forma atómica.</li>
+ *     <li>{@link ModoAlmacen#JOURNAL}: como MEMORIA, pero cada usuario nuevo se añade a un journal al final del
+ *     archivo (coste constante) y el journal se compacta en el XML cuando supera un tamaño o cada cierto tiempo.
+ *     Al arrancar se reproduce el journal sobre la última instantánea XML, que sigue siendo la exportación canónica.</li>
+ * </ul>
+ * Además, la instantánea puede guardarse en XML ({@link FormatoSnapshot#XML}) o en un formato binario compacto
+ * ({@link FormatoSnapshot#BINARIO}, ver {@link UsuarioSnapshotBinario}) que se lee mediante mapeo en memoria.
+ * Con la instantánea binaria, cada vez que se escribe (en cada alta en modo DIRECTO, en cada volcado o
+ * compactación en los demás) también se exporta el XML, que sigue siendo la exportación canónica.
+ * <p>
+ * Si varias instancias de la aplicación comparten el archivo, deben usar el modo DIRECTO: cada escritura se hace
+ * con el archivo bloqueado para todos los procesos e incrementa su generación (ver {@link CoordinadorArchivo}).
+ * Los modos MEMORIA y JOURNAL reservan el archivo para una sola instancia, porque al volcar su copia en memoria
+ * sobrescribirían los cambios de las demás; si otra instancia ya lo tiene reservado, el DAO no arranca.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 public class UsuarioDAO {
 
     private static final String FILE_PATH = "src/main/java/com/lvg/grandao_biblioteca/datos/usuarios.xml";
 
+    // El contexto JAXB es costoso de crear y es seguro entre hilos, así que se crea una única vez.
+    private static final JAXBContext CONTEXTO = crearContexto();
+
+    // Igual que el contexto JAXB, la factoría StAX es segura entre hilos una vez configurada.
+    private static final XMLInputFactory FACTORIA_STAX = crearFactoriaStax();
+
+    // Las métricas de todas las instancias se suman en las del almacén "xml".
+    private static final MetricasAlmacen METRICAS = new MetricasAlmacen("xml");
+
+    /**
+     * Modos de funcionamiento del DAO.
+     *
+     * @since 1.1
+     */
+    public enum ModoAlmacen {
+        DIRECTO,
+        MEMORIA,
+        JOURNAL
+    }
+
+    /**
+     * Formatos de la instantánea de usuarios.
+     *
+     * @since 1.1
+     */
+    public enum FormatoSnapshot {
+        XML,
+        BINARIO
+    }
+
+    private final Path xmlPath;
+    private final Path binarioPath;
+    private final ModoAlmacen modo;
+    private final FormatoSnapshot formato;
+    private final long retrasoEscrituraMs;
+    private final long maxBytesJournal;
+    private final CoordinadorArchivo coordinador;
+
+    // Solo se usan en los modos MEMORIA y JOURNAL.
+    private final ConcurrentSkipListMap<Integer, Usuario> usuarios = new ConcurrentSkipListMap<>();
+    private final AtomicInteger ultimoId = new AtomicInteger();
+    private final AtomicBoolean volcadoPendiente = new AtomicBoolean();
+
+    // Impide que se solapen dos volcados o compactaciones. Es un cerrojo y no synchronized porque con él se escribe
+    // todo el archivo, y un hilo virtual que espera a un monitor bloquea también su hilo portador.
+    private final ReentrantLock cerrojoVolcado = new ReentrantLock();
+    private ScheduledExecutorService escritor;
+
+    // Solo se usa en modo JOURNAL.
+    private UsuarioJournal journal;
+
+    /**
+     * Constructor por defecto, que trabaja directamente sobre el archivo XML.
+     *
+     * @since 1.0
+     */
+    public UsuarioDAO() {
+        this(ModoAlmacen.DIRECTO, 0);
+    }
+
+    /**
+     * Constructor con el modo de funcionamiento.
+     *
+     * @param modo Modo de funcionamiento del DAO.
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo (modo MEMORIA),
+     *                           para agrupar varias escrituras en un único volcado.
+     * @throws IllegalStateException Si no se puede cargar el archivo XML en modo MEMORIA.
+     * @since 1.1
+     */
+    public UsuarioDAO(ModoAlmacen modo, long retrasoEscrituraMs) {
+        this(Path.of(FILE_PATH), modo, retrasoEscrituraMs);
+    }
+
+    /**
+     * Constructor con el modo de funcionamiento y los umbrales de compactación del modo JOURNAL.
+     *
+     * @param modo Modo de funcionamiento del DAO.
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo (modo MEMORIA).
+     * @param maxBytesJournal Tamaño del journal a partir del cual se compacta en el XML (modo JOURNAL).
+     * @param intervaloCompactacionMs Cada cuántos milisegundos se compacta el journal si tiene registros (modo JOURNAL).
+     * @throws IllegalStateException Si no se puede cargar el archivo XML o el journal.
+     * @since 1.1
+     */
+    public UsuarioDAO(ModoAlmacen modo, long retrasoEscrituraMs, long maxBytesJournal, long intervaloCompactacionMs) {
+        this(Path.of(FILE_PATH), modo, FormatoSnapshot.XML, retrasoEscrituraMs, maxBytesJournal, intervaloCompactacionMs);
+    }
+
+    /**
+     * Constructor con el modo de funcionamiento, el formato de la instantánea y los umbrales del modo JOURNAL.
+     *
+     * @param modo Modo de funcionamiento del DAO.
+     * @param formato Formato de la instantánea de usuarios.
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo (modo MEMORIA).
+     * @param maxBytesJournal Tamaño del journal a partir del cual se compacta en la instantánea (modo JOURNAL).
+     * @param intervaloCompactacionMs Cada cuántos milisegundos se compacta el journal si tiene registros (modo JOURNAL).
+     * @throws IllegalStateException Si no se puede cargar la instantánea o el journal.
+     * @since 1.1
+     */
+    public UsuarioDAO(ModoAlmacen modo, FormatoSnapshot formato, long retrasoEscrituraMs, long maxBytesJournal,
+                      long intervaloCompactacionMs) {
+        this(Path.of(FILE_PATH), modo, formato, retrasoEscrituraMs, maxBytesJournal, intervaloCompactacionMs);
+    }
+
+    /**
+     * Constructor con la ruta del archivo XML y el modo de funcionamiento.
+     *
+     * @param xmlPath Ruta del archivo XML de usuarios.
+     * @param modo Modo de funcionamiento del DAO.
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo (modo MEMORIA).
+     * @throws IllegalStateException Si no se puede cargar el archivo XML en modo MEMORIA.
+     * @since 1.1
+     */
+    public UsuarioDAO(Path xmlPath, ModoAlmacen modo, long retrasoEscrituraMs) {
+        this(xmlPath, modo, retrasoEscrituraMs, 0, 0);
+    }
+
+    /**
+     * Constructor completo, con los umbrales de compactación del modo JOURNAL.
+     *
+     * @param xmlPath Ruta del archivo XML de usuarios.
+     * @param modo Modo de funcionamiento del DAO.
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo (modo MEMORIA).
+     * @param maxBytesJournal Tamaño del journal a partir del cual se compacta en el XML (modo JOURNAL).
+     * @param intervaloCompactacionMs Cada cuántos milisegundos se compacta el journal si tiene registros (modo JOURNAL).
+     * @throws IllegalStateException Si no se puede cargar el archivo XML o el journal.
+     * @since 1.1
+     */
+    public UsuarioDAO(Path xmlPath, ModoAlmacen modo, long retrasoEscrituraMs, long maxBytesJournal, long intervaloCompactacionMs) {
+        this(xmlPath, modo, FormatoSnapshot.XML, retrasoEscrituraMs, maxBytesJournal, intervaloCompactacionMs);
+    }
+
+    /**
+     * Constructor completo.
+     * Con el formato BINARIO, la instantánea se guarda en {@code usuarios.bin}, junto al XML; si todavía no existe,
+     * se genera a partir del XML la primera vez que se lee.
+     *
+     * @param xmlPath Ruta del archivo XML de usuarios.
+     * @param modo Modo de funcionamiento del DAO.
+     * @param formato Formato de la instantánea de usuarios.
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo (modo MEMORIA).
+     * @param maxBytesJournal Tamaño del journal a partir del cual se compacta en la instantánea (modo JOURNAL).
+     * @param intervaloCompactacionMs Cada cuántos milisegundos se compacta el journal si tiene registros (modo JOURNAL).
+     * @throws IllegalStateException Si no se puede cargar la instantánea o el journal.
+     * @since 1.1
+     */
+    public UsuarioDAO(Path xmlPath, ModoAlmacen modo, FormatoSnapshot formato, long retrasoEscrituraMs,
+                      long maxBytesJournal, long intervaloCompactacionMs) {
+        this.xmlPath = xmlPath;
+        this.binarioPath = xmlPath.resolveSibling("usuarios.bin");
+        this.modo = modo;
+        this.formato = formato;
+        this.retrasoEscrituraMs = retrasoEscrituraMs;
+        this.maxBytesJournal = maxBytesJournal;
+        this.coordinador = CoordinadorArchivo.para(xmlPath);
+
+        if (modo == ModoAlmacen.DIRECTO) {
+            return;
+        }
+
+        try {
+            if (!coordinador.reservar()) {
+                throw new IllegalStateException("El archivo de usuarios ya lo usa otra instancia en modo MEMORIA o JOURNAL: " + xmlPath);
+            }
+            // Se carga el archivo una única vez al arrancar.
+            for (Usuario usuario : leerArchivo()) {
+                indexar(usuario);
+            }
+            // En modo JOURNAL, se aplican encima los usuarios agregados después de la última compactación.
+            if (modo == ModoAlmacen.JOURNAL) {
+                journal = new UsuarioJournal(xmlPath.resolveSibling("usuarios.journal"), true);
+                for (Usuario usuario : journal.reproducir()) {
+                    indexar(usuario);
+                }
+            }
+        } catch (JAXBException | IOException e) {
+            coordinador.liberar();
+            throw new IllegalStateException("No se ha podido cargar el archivo de usuarios: " + xmlPath, e);
+        }
+
+        // Hilo único encargado de escribir el archivo, para que nunca haya dos volcados a la vez.
+        this.escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "usuarios-escritor");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        if (modo == ModoAlmacen.JOURNAL && intervaloCompactacionMs > 0) {
+            escritor.scheduleWithFixedDelay(this::compactar, intervaloCompactacionMs, intervaloCompactacionMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
     /**
      * Lee los usuarios desde un archivo XML y los convierte en una lista de objetos Usuario.
      * Este método utiliza JAXB para deserializar el XML a un objeto Java.
+     * En modo MEMORIA la lista se obtiene del mapa en memoria, sin acceder al archivo.
      *
      * @return Una lista de usuarios leída desde el archivo XML.
      * @throws JAXBException Si ocurre un error al procesar el archivo XML.
      * @since 1.0
      */
     public List<Usuario> obtenerUsuarios() throws JAXBException {
-        // Creación de un contexto JAXB para la clase Usuarios.
-        // El contexto JAXB es responsable de gestionar el proceso de conversión entre XML y objetos Java.
-        JAXBContext context = JAXBContext.newInstance(Usuarios.class);
+        return METRICAS.medir("obtenerUsuarios", () -> {
+            if (modo != ModoAlmacen.DIRECTO) {
+                return new ArrayList<>(usuarios.values());
+            }
+            return leerArchivo();
+        });
+    }
 
-        // Crea un Unmarshaller para convertir un XML a un objeto Java.
-        // Unmarshaller es utilizado para deserializar (convertir) datos XML en objetos Java.
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+    /**
+     * Recorre los usuarios de uno en uno, sin cargar la lista completa en memoria.
+     * El archivo XML se lee con StAX elemento a elemento y la lectura se detiene en cuanto se completa la página,
+     * de modo que la memoria usada no depende del número de usuarios.
+     * En los modos MEMORIA y JOURNAL se recorre directamente el mapa en memoria.
+     *
+     * @param offset Número de usuarios que se saltan antes de empezar a entregarlos.
+     * @param limit Número máximo de usuarios a entregar, o un valor negativo para entregarlos todos.
+     * @param consumidor Función que recibe cada usuario de la página.
+     * @throws XMLStreamException Si ocurre un error al procesar el archivo XML.
+     * @throws IOException Si ocurre un error al leer el archivo XML.
+     * @since 1.1
+     */
+    public void recorrerUsuarios(int offset, int limit, Consumer<Usuario> consumidor) throws XMLStreamException, IOException {
+        METRICAS.<Void, XMLStreamException, IOException>medir("recorrerUsuarios", () -> {
+            if (modo != ModoAlmacen.DIRECTO) {
+                Iterator<Usuario> it = usuarios.values().iterator();
+                for (int i = 0; i < offset && it.hasNext(); i++) {
+                    it.next();
+                }
+                for (int entregados = 0; it.hasNext() && (limit < 0 || entregados < limit); entregados++) {
+                    consumidor.accept(it.next());
+                }
+                return null;
+            }
 
-        // Carga el archivo XML desde el sistema de archivos.
-        File xmlFile = new File(FILE_PATH);
+            if (formato == FormatoSnapshot.BINARIO) {
+                abrirBinario().recorrer(offset, limit, consumidor);
+                return null;
+            }
 
-        // Deserializa el archivo XML en un objeto Usuarios.
-        // Esto convierte el XML en un objeto de tipo Usuarios que contiene una lista de usuarios.
-        Usuarios usuarios = (Usuarios) unmarshaller.unmarshal(xmlFile);
+            try (InputStream entrada = METRICAS.contarLectura(Files.newInputStream(xmlPath))) {
+                XMLStreamReader lector = FACTORIA_STAX.createXMLStreamReader(entrada);
+                try {
+                    int leidos = 0;
+                    int entregados = 0;
+                    while (limit < 0 || entregados < limit) {
+                        Usuario usuario = siguienteUsuario(lector);
+                        if (usuario == null) {
+                            break;
+                        }
+                        // Los usuarios anteriores al offset se leen pero no se entregan.
+                        if (leidos++ >= offset) {
+                            consumidor.accept(usuario);
+                            entregados++;
+                        }
+                    }
+                } finally {
+                    lector.close();
+                }
+            }
+            return null;
+        });
+    }
 
-        // Devuelve la lista de usuarios obtenida del objeto Usuarios.
-        return usuarios.getUsuarioList();
+    /**
+     * Obtiene un usuario por su ID.
+     * En los modos MEMORIA y JOURNAL se consulta el mapa; con la instantánea binaria se usa su índice, sin decodificar
+     * el resto de usuarios; y con el XML se recorre el archivo con StAX hasta encontrarlo.
+     *
+     * @param usuarioId El ID del usuario.
+     * @return Un Optional con el usuario, o vacío si no existe.
+     * @throws XMLStreamException Si ocurre un error al procesar el archivo XML.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     * @since 1.1
+     */
+    public Optional<Usuario> obtenerUsuarioPorId(int usuarioId) throws XMLStreamException, IOException {
+        return METRICAS.<Optional<Usuario>, XMLStreamException, IOException>medir("obtenerUsuarioPorId", () -> {
+            if (modo != ModoAlmacen.DIRECTO) {
+                return Optional.ofNullable(usuarios.get(usuarioId));
+            }
+            if (formato == FormatoSnapshot.BINARIO) {
+                return Optional.ofNullable(abrirBinario().buscar(usuarioId));
+            }
+            try (InputStream entrada = METRICAS.contarLectura(Files.newInputStream(xmlPath))) {
+                XMLStreamReader lector = FACTORIA_STAX.createXMLStreamReader(entrada);
+                try {
+                    Usuario usuario;
+                    while ((usuario = siguienteUsuario(lector)) != null) {
+                        if (Integer.valueOf(usuarioId).equals(usuario.getUsuarioId())) {
+                            return Optional.of(usuario);
+                        }
+                    }
+                    return Optional.empty();
+                } finally {
+                    lector.close();
+                }
+            }
+        });
     }
 
     /**
      * Agrega un nuevo usuario al archivo XML.
      * Este método utiliza JAXB para deserializar el XML, agregar un nuevo usuario y luego serializar de nuevo el objeto Java a XML.
+     * En modo MEMORIA el usuario se agrega al mapa y el archivo se actualiza en segundo plano.
+     * En modo JOURNAL el usuario se agrega al mapa y se añade un registro al final del journal.
+     * En estos dos modos, si ya existe un usuario con el mismo ID, no se agrega.
      *
      * @param usuario El usuario a agregar al archivo XML.
-     * @throws JAXBException Si ocurre un error al procesar el archivo XML.
+     * @throws JAXBException Si ocurre un error al procesar el archivo XML o al escribir el journal.
+     * @throws IllegalStateException Si, en modo MEMORIA o JOURNAL, ya existe un usuario con el mismo ID.
      * @since 1.0
      */
     public void agregarUsuario(Usuario usuario) throws JAXBException {
-        // Creación de un contexto JAXB para la clase Usuarios.
-        // El contexto JAXB es necesario para manejar la conversión de objetos Java a XML y viceversa.
-        JAXBContext context = JAXBContext.newInstance(Usuarios.class);
+        METRICAS.medir("agregarUsuario", () -> {
+            if (modo == ModoAlmacen.MEMORIA) {
+                indexarNuevo(usuario);
+                programarVolcado();
+                return null;
+            }
+
+            if (modo == ModoAlmacen.JOURNAL) {
+                // Primero se agrega al mapa: así cualquier registro del journal está ya en el mapa cuando se compacta.
+                // Un ID existente se rechaza antes de escribir nada, así que si falla el journal solo hay que
+                // quitar la entrada que se acaba de agregar.
+                indexarNuevo(usuario);
+                try {
+                    journal.anotar(usuario);
+                    if (journal.tamano() >= maxBytesJournal && volcadoPendiente.compareAndSet(false, true)) {
+                        escritor.execute(this::compactar);
+                    }
+                } catch (IOException e) {
+                    usuarios.remove(usuario.getUsuarioId(), usuario);
+                    throw new JAXBException("No se ha podido escribir el journal de usuarios", e);
+                }
+                return null;
+            }
+
+            // Se bloquea el archivo para que dos peticiones simultáneas (de esta u otra instancia)
+            // no pierdan la escritura de la otra.
+            try {
+                coordinador.escribir(() -> {
+                    // Deserializa el XML existente y agrega el nuevo usuario a la lista de usuarios.
+                    List<Usuario> lista = leerArchivo();
+                    asignarIdSiFalta(usuario, lista);
+                    lista.add(usuario);
+
+                    // Serializa la lista actualizada de nuevo en el archivo XML.
+                    escribirArchivo(lista);
+                    return null;
+                });
+            } catch (IOException e) {
+                throw new JAXBException("No se ha podido bloquear el archivo de usuarios: " + xmlPath, e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Agrega un lote de usuarios con una sola lectura y una sola escritura atómica del archivo XML.
+     * Los usuarios cuyo ID ya existe no se agregan y se devuelven como duplicados.
+     * En modo MEMORIA se programa un único volcado para todo el lote, y en modo JOURNAL
+     * los registros del lote se escriben juntos y se fuerzan a disco una sola vez.
+     *
+     * @param lote Los usuarios a agregar. Los IDs del lote deben ser distintos entre sí.
+     * @return Los IDs del lote que ya existían y, por tanto, no se han agregado.
+     * @throws JAXBException Si ocurre un error al procesar el archivo XML o al escribir el journal.
+     * @since 1.1
+     */
+    public Set<Integer> agregarUsuarios(List<Usuario> lote) throws JAXBException {
+        return METRICAS.medir("agregarUsuarios", () -> {
+            Set<Integer> duplicados = new HashSet<>();
+
+            if (modo != ModoAlmacen.DIRECTO) {
+                List<Usuario> agregados = new ArrayList<>(lote.size());
+                // Se sincroniza para que dos lotes simultáneos no agreguen el mismo ID.
+                synchronized (usuarios) {
+                    for (Usuario usuario : lote) {
+                        if (usuario.getUsuarioId() != null && usuarios.containsKey(usuario.getUsuarioId())) {
+                            duplicados.add(usuario.getUsuarioId());
+                        } else {
+                            indexar(usuario);
+                            agregados.add(usuario);
+                        }
+                    }
+                }
+                if (modo == ModoAlmacen.MEMORIA) {
+                    programarVolcado();
+                    return duplicados;
+                }
+                try {
+                    journal.anotarTodos(agregados);
+                    if (journal.tamano() >= maxBytesJournal && volcadoPendiente.compareAndSet(false, true)) {
+                        escritor.execute(this::compactar);
+                    }
+                } catch (IOException e) {
+                    agregados.forEach(usuario -> usuarios.remove(usuario.getUsuarioId()));
+                    throw new JAXBException("No se ha podido escribir el journal de usuarios", e);
+                }
+                return duplicados;
+            }
+
+            try {
+                coordinador.escribir(() -> {
+                    // Una sola lectura para comprobar los IDs existentes y agregar el lote completo.
+                    List<Usuario> lista = leerArchivo();
+                    Set<Integer> existentes = new HashSet<>();
+                    for (Usuario usuario : lista) {
+                        existentes.add(usuario.getUsuarioId());
+                    }
+                    for (Usuario usuario : lote) {
+                        if (usuario.getUsuarioId() != null && existentes.contains(usuario.getUsuarioId())) {
+                            duplicados.add(usuario.getUsuarioId());
+                        } else {
+                            asignarIdSiFalta(usuario, lista);
+                            lista.add(usuario);
+                        }
+                    }
+                    // Y una sola escritura atómica.
+                    if (duplicados.size() < lote.size()) {
+                        escribirArchivo(lista);
+                    }
+                    return null;
+                });
+            } catch (IOException e) {
+                throw new JAXBException("No se ha podido bloquear el archivo de usuarios: " + xmlPath, e);
+            }
+            return duplicados;
+        });
+    }
+
+    /**
+     * Vuelca inmediatamente los cambios pendientes y detiene el hilo escritor.
+     * Debe llamarse al cerrar la aplicación para no perder escrituras en modo MEMORIA.
+     * En modo JOURNAL se compacta el journal, para dejar el XML al día.
+     *
+     * @since 1.1
+     */
+    public void cerrar() {
+        if (escritor == null) {
+            return;
+        }
+        try {
+            cerrarEscritor();
+        } finally {
+            coordinador.liberar();
+        }
+    }
+
+    /**
+     * Obtiene la generación actual del archivo de usuarios, que se incrementa con cada escritura de cualquier instancia.
+     * Sirve para saber, sin acceder al disco, si una copia en memoria de los usuarios está desactualizada.
+     *
+     * @return La generación actual del archivo.
+     * @since 1.1
+     */
+    public long obtenerGeneracion() {
+        return coordinador.generacion();
+    }
 
-        // Crea un Marshaller para convertir un objeto Java en XML.
-        // Marshaller es responsable de serializar (convertir) objetos Java en representación XML.
-        Marshaller marshaller = context.createMarshaller();
+    /**
+     * Detiene el hilo escritor y deja el archivo al día.
+     *
+     * @since 1.1
+     */
+    private void cerrarEscritor() {
+        escritor.shutdown();
+        try {
+            escritor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (modo == ModoAlmacen.JOURNAL) {
+            compactar();
+            try {
+                journal.cerrar();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if (volcadoPendiente.get()) {
+            volcar();
+        }
+    }
 
-        // Crea un Unmarshaller para convertir XML en objetos Java.
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+    /**
+     * Agrega un usuario al mapa en memoria, asignándole un ID si no lo tiene.
+     *
+     * @param usuario El usuario a agregar.
+     * @since 1.1
+     */
+    private void indexar(Usuario usuario) {
+        if (usuario.getUsuarioId() == null) {
+            usuario.setUsuarioId(ultimoId.incrementAndGet());
+        } else {
+            ultimoId.accumulateAndGet(usuario.getUsuarioId(), Math::max);
+        }
+        usuarios.put(usuario.getUsuarioId(), usuario);
+    }
 
-        // Carga el archivo XML desde el sistema de archivos.
-        File xmlFile = new File(FILE_PATH);
+    /**
+     * Agrega al mapa en memoria un usuario nuevo, igual que {@link #indexar(Usuario)}, pero sin reemplazar nunca
+     * a otro: la comprobación y la inserción se hacen juntas para que dos altas simultáneas no usen el mismo ID.
+     *
+     * @param usuario El usuario a agregar.
+     * @throws IllegalStateException Si ya existe un usuario con el mismo ID.
+     * @since 1.1
+     */
+    private void indexarNuevo(Usuario usuario) {
+        synchronized (usuarios) {
+            if (usuario.getUsuarioId() != null && usuarios.containsKey(usuario.getUsuarioId())) {
+                throw new IllegalStateException("Ya existe un usuario con el ID " + usuario.getUsuarioId());
+            }
+            indexar(usuario);
+        }
+    }
 
-        // Deserializa el XML existente en un objeto Usuarios.
-        // Este paso convierte el archivo XML en un objeto Java, que contiene la lista actual de usuarios.
-        Usuarios usuarios = (Usuarios) unmarshaller.unmarshal(xmlFile);
+    /**
+     * Asigna al usuario el ID siguiente al mayor de la lista si no tiene ninguno y la instantánea es binaria,
+     * ya que su índice necesita que todos los usuarios tengan ID.
+     *
+     * @param usuario El usuario a agregar.
+     * @param lista Los usuarios ya almacenados.
+     * @since 1.1
+     */
+    private void asignarIdSiFalta(Usuario usuario, List<Usuario> lista) {
+        if (usuario.getUsuarioId() == null && formato == FormatoSnapshot.BINARIO) {
+            int maximo = 0;
+            for (Usuario existente : lista) {
+                if (existente.getUsuarioId() != null) {
+                    maximo = Math.max(maximo, existente.getUsuarioId());
+                }
+            }
+            usuario.setUsuarioId(maximo + 1);
+        }
+    }
 
-        // Agrega el nuevo usuario a la lista de usuarios.
-        usuarios.getUsuarioList().add(usuario);
+    /**
+     * Programa un volcado del mapa al archivo, si no hay ya uno pendiente.
+     * Así, varias escrituras seguidas se agrupan en un único volcado.
+     *
+     * @since 1.1
+     */
+    private void programarVolcado() {
+        if (volcadoPendiente.compareAndSet(false, true)) {
+            escritor.schedule(this::volcar, retrasoEscrituraMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Escribe el contenido actual del mapa en el archivo XML.
+     * Si falla, se vuelve a programar para no perder los cambios.
+     *
+     * @since 1.1
+     */
+    private void volcar() {
+        cerrojoVolcado.lock();
+        // Se marca antes de copiar el mapa, para que los cambios posteriores programen otro volcado.
+        volcadoPendiente.set(false);
+        try {
+            METRICAS.<Void, JAXBException, IOException>medir("volcar", () -> coordinador.escribir(() -> {
+                escribirArchivo(new ArrayList<>(usuarios.values()));
+                return null;
+            }));
+        } catch (JAXBException | IOException e) {
+            e.printStackTrace();
+            if (!escritor.isShutdown()) {
+                programarVolcado();
+            }
+        } finally {
+            cerrojoVolcado.unlock();
+        }
+    }
+
+    /**
+     * Compacta el journal en el archivo XML.
+     * El journal actual se aparta antes de copiar el mapa, de modo que todos sus registros están en la copia;
+     * solo se elimina cuando la nueva instantánea se ha escrito por completo. Si algo falla, al arrancar se
+     * reproduce de nuevo, y como los registros sustituyen por ID, reproducirlos dos veces no tiene efecto.
+     *
+     * @since 1.1
+     */
+    private void compactar() {
+        cerrojoVolcado.lock();
+        volcadoPendiente.set(false);
+        try {
+            // Sin nada que compactar no se cuenta como operación.
+            if (journal.tamano() == 0) {
+                return;
+            }
+            METRICAS.<Void, IOException, JAXBException>medir("compactar", () -> {
+                journal.rotar();
+                coordinador.escribir(() -> {
+                    escribirArchivo(new ArrayList<>(usuarios.values()));
+                    return null;
+                });
+                journal.descartarRotado();
+                return null;
+            });
+        } catch (IOException | JAXBException e) {
+            e.printStackTrace();
+        } finally {
+            cerrojoVolcado.unlock();
+        }
+    }
+
+    /**
+     * Convierte un archivo XML de usuarios en una instantánea binaria.
+     *
+     * @param xml Ruta del archivo XML de origen.
+     * @param binario Ruta de la instantánea binaria de destino.
+     * @throws JAXBException Si ocurre un error al procesar el archivo XML.
+     * @throws IOException Si algún usuario del XML no tiene {@code usuario_id} o si ocurre un error al escribir
+     *                     la instantánea binaria.
+     * @since 1.1
+     */
+    public static void convertirXmlABinario(Path xml, Path binario) throws JAXBException, IOException {
+        UsuarioSnapshotBinario.escribir(leerXml(xml), binario);
+    }
+
+    /**
+     * Convierte una instantánea binaria de usuarios en un archivo XML.
+     *
+     * @param binario Ruta de la instantánea binaria de origen.
+     * @param xml Ruta del archivo XML de destino.
+     * @throws JAXBException Si ocurre un error al generar el XML o al escribir el archivo.
+     * @throws IOException Si ocurre un error al leer la instantánea binaria.
+     * @since 1.1
+     */
+    public static void convertirBinarioAXml(Path binario, Path xml) throws JAXBException, IOException {
+        escribirXml(new UsuarioSnapshotBinario(binario).leerTodos(), xml);
+    }
 
-        // Serializa el objeto actualizado (con el nuevo usuario agregado) de nuevo en un archivo XML.
-        // Este paso convierte el objeto Java actualizado en un archivo XML que contiene la lista actualizada de usuarios.
-        marshaller.marshal(usuarios, xmlFile);
+    /**
+     * Lee todos los usuarios de la instantánea, en el formato configurado.
+     *
+     * @return La lista de usuarios de la instantánea.
+     * @throws JAXBException Si ocurre un error al procesar el archivo XML o la instantánea binaria.
+     * @since 1.1
+     */
+    private List<Usuario> leerArchivo() throws JAXBException {
+        if (formato == FormatoSnapshot.XML) {
+            return leerXml(xmlPath);
+        }
+        try {
+            return new ArrayList<>(abrirBinario().leerTodos());
+        } catch (IOException e) {
+            throw new JAXBException("No se ha podido leer la instantánea de usuarios: " + binarioPath, e);
+        }
+    }
+
+    /**
+     * Escribe todos los usuarios en la instantánea, en el formato configurado. Con la instantánea binaria,
+     * después se exporta también el XML; se escribe en segundo lugar porque las lecturas usan la binaria.
+     *
+     * @param lista La lista de usuarios a escribir.
+     * @throws JAXBException Si ocurre un error al generar el XML o al escribir el archivo.
+     * @since 1.1
+     */
+    private void escribirArchivo(List<Usuario> lista) throws JAXBException {
+        if (formato == FormatoSnapshot.BINARIO) {
+            try {
+                UsuarioSnapshotBinario.escribir(lista, binarioPath);
+            } catch (IOException e) {
+                throw new JAXBException("No se ha podido escribir la instantánea de usuarios: " + binarioPath, e);
+            }
+        }
+        escribirXml(lista, xmlPath);
+    }
+
+    /**
+     * Abre la instantánea binaria, generándola a partir del XML si todavía no existe.
+     *
+     * @return La instantánea binaria mapeada en memoria.
+     * @throws IOException Si ocurre un error al leer o generar la instantánea.
+     * @since 1.1
+     */
+    private UsuarioSnapshotBinario abrirBinario() throws IOException {
+        if (Files.notExists(binarioPath)) {
+            // Otra instancia puede estar generándola a la vez, así que se comprueba de nuevo con el archivo bloqueado.
+            coordinador.escribir(() -> {
+                if (Files.notExists(binarioPath)) {
+                    try {
+                        convertirXmlABinario(xmlPath, binarioPath);
+                    } catch (JAXBException e) {
+                        throw new IOException("No se ha podido convertir el archivo de usuarios: " + xmlPath, e);
+                    }
+                }
+                return null;
+            });
+        }
+        return new UsuarioSnapshotBinario(binarioPath);
+    }
+
+    /**
+     * Deserializa un archivo XML en una lista de usuarios.
+     *
+     * @param path Ruta del archivo XML.
+     * @return La lista de usuarios del archivo.
+     * @throws JAXBException Si ocurre un error al procesar el archivo XML.
+     * @since 1.1
+     */
+    private static List<Usuario> leerXml(Path path) throws JAXBException {
+        // Crea un Unmarshaller para convertir un XML a un objeto Java.
+        Unmarshaller unmarshaller = CONTEXTO.createUnmarshaller();
+
+        // Deserializa el archivo XML en un objeto Usuarios que contiene una lista de usuarios.
+        File archivo = path.toFile();
+        Usuarios leidos = (Usuarios) unmarshaller.unmarshal(archivo);
+        METRICAS.contarLeidos(archivo.length());
+
+        // Si el archivo no tiene ningún <usuario>, JAXB deja la lista a null.
+        if (leidos.getUsuarioList() == null) {
+            return new ArrayList<>();
+        }
+        return leidos.getUsuarioList();
+    }
+
+    /**
+     * Avanza el lector StAX hasta el siguiente elemento {@code <usuario>} y lo convierte en un objeto Usuario.
+     *
+     * @param lector El lector StAX posicionado en cualquier punto del documento.
+     * @return El siguiente usuario, o {@code null} si no quedan más.
+     * @throws XMLStreamException Si ocurre un error al procesar el archivo XML.
+     * @since 1.1
+     */
+    private static Usuario siguienteUsuario(XMLStreamReader lector) throws XMLStreamException {
+        while (lector.hasNext()) {
+            if (lector.next() == XMLStreamConstants.START_ELEMENT && "usuario".equals(lector.getLocalName())) {
+                Usuario usuario = new Usuario();
+                // Se leen los hijos de <usuario> hasta encontrar su etiqueta de cierre.
+                while (lector.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String campo = lector.getLocalName();
+                    String valor = lector.getElementText().trim();
+                    switch (campo) {
+                        case "usuario_id" -> usuario.setUsuarioId(Integer.valueOf(valor));
+                        case "nombre_usuario" -> usuario.setNombreUsuario(valor);
+                        case "correo" -> usuario.setCorreo(valor);
+                        case "telefono" -> usuario.setTelefono(valor);
+                        default -> {
+                            // Los elementos desconocidos se ignoran, igual que hace JAXB.
+                        }
+                    }
+                }
+                return usuario;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Serializa la lista de usuarios en un archivo XML.
+     * Primero se escribe un archivo temporal en el mismo directorio y después se renombra de forma atómica,
+     * para que ningún lector vea nunca un archivo a medio escribir.
+     *
+     * @param lista La lista de usuarios a escribir.
+     * @param path Ruta del archivo XML.
+     * @throws JAXBException Si ocurre un error al generar el XML o al escribir el archivo.
+     * @since 1.1
+     */
+    private static void escribirXml(List<Usuario> lista, Path path) throws JAXBException {
+        Marshaller marshaller = CONTEXTO.createMarshaller();
+        Path temporal = null;
+        try {
+            temporal = Files.createTempFile(path.toAbsolutePath().getParent(), "usuarios", ".xml.tmp");
+            File destino = temporal.toFile();
+            marshaller.marshal(new Usuarios(lista), destino);
+            METRICAS.contarEscritos(destino.length());
+            Files.move(temporal, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new JAXBException("No se ha podido escribir el archivo de usuarios: " + path, e);
+        } finally {
+            if (temporal != null) {
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException ignored) {
+                    // El temporal ya se ha renombrado o se limpiará en el siguiente volcado.
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea la factoría StAX, sin soporte de DTD ni de entidades externas.
+     *
+     * @return La factoría StAX.
+     * @since 1.1
+     */
+    private static XMLInputFactory crearFactoriaStax() {
+        XMLInputFactory factoria = XMLInputFactory.newFactory();
+        factoria.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factoria.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factoria;
+    }
+
+    /**
+     * Crea el contexto JAXB para la clase Usuarios.
+     *
+     * @return El contexto JAXB.
+     * @since 1.1
+     */
+    private static JAXBContext crearContexto() {
+        try {
+            return JAXBContext.newInstance(Usuarios.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("No se ha podido crear el contexto JAXB de usuarios", e);
+        }
     }
 }
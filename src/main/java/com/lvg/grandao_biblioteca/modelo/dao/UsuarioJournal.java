@@ -0,0 +1,279 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import com.lvg.grandao_biblioteca.modelo.dto.Usuario;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Journal de solo escritura al final para los usuarios agregados.
+ * Cada usuario se guarda como un registro de formato fijo:
+ * <pre>
+ *     [longitud: int][crc32: int][usuarioId: int][nombreUsuario: UTF][correo: UTF][telefono: UTF]
+ * </pre>
+ * Al compactar, el journal actual se renombra a {@code .old} y se empieza uno nuevo, de modo que los registros
+ * no se pierden hasta que la nueva instantánea XML se ha escrito por completo.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+class UsuarioJournal {
+
+    // Tamaño de la cabecera de cada registro: longitud y CRC32.
+    private static final int CABECERA = Integer.BYTES * 2;
+
+    // Bytes leídos y escritos, en las métricas del almacén de usuarios.
+    private static final MetricasAlmacen METRICAS = new MetricasAlmacen("xml");
+
+    private final Path journalPath;
+    private final Path rotadoPath;
+    private final boolean sincronizar;
+    private FileChannel canal;
+
+    // Cerrojo en lugar de synchronized: un hilo virtual que espera a un monitor mientras otro escribe y fuerza
+    // el journal a disco bloquea también su hilo portador.
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    /**
+     * Constructor con la ruta del journal. El archivo se abre al reproducirlo con {@link #reproducir()}.
+     *
+     * @param journalPath Ruta del archivo de journal.
+     * @param sincronizar Si es {@code true}, cada registro se fuerza a disco antes de confirmar la escritura.
+     * @since 1.1
+     */
+    UsuarioJournal(Path journalPath, boolean sincronizar) {
+        this.journalPath = journalPath;
+        this.rotadoPath = journalPath.resolveSibling(journalPath.getFileName() + ".old");
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * Lee todos los registros del journal (primero el rotado, si existe, y después el actual) en orden de escritura.
+     * Si el último registro está incompleto o dañado (por ejemplo, tras una caída a mitad de escritura),
+     * se descarta y el archivo se trunca en ese punto. Después de reproducir, el journal queda abierto para escribir.
+     *
+     * @return Los usuarios registrados, en el orden en que se escribieron.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     * @since 1.1
+     */
+    List<Usuario> reproducir() throws IOException {
+        cerrojo.lock();
+        try {
+            List<Usuario> usuarios = new ArrayList<>();
+            leer(rotadoPath, usuarios);
+            leer(journalPath, usuarios);
+            canal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            return usuarios;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Añade un usuario al final del journal.
+     *
+     * @param usuario El usuario a registrar. Debe tener ya su ID asignado.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     * @since 1.1
+     */
+    void anotar(Usuario usuario) throws IOException {
+        anotarTodos(List.of(usuario));
+    }
+
+    /**
+     * Añade varios usuarios al final del journal con una sola escritura y, si procede, un solo forzado a disco.
+     *
+     * @param lote Los usuarios a registrar. Deben tener ya su ID asignado.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     * @since 1.1
+     */
+    void anotarTodos(List<Usuario> lote) throws IOException {
+        cerrojo.lock();
+        try {
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<ByteBuffer> registros = new ArrayList<>(lote.size());
+            for (Usuario usuario : lote) {
+                registros.add(registro(usuario));
+            }
+            ByteBuffer[] buffers = registros.toArray(new ByteBuffer[0]);
+            ByteBuffer ultimo = buffers[buffers.length - 1];
+            long escritos = 0;
+            while (ultimo.hasRemaining()) {
+                escritos += canal.write(buffers);
+            }
+            METRICAS.contarEscritos(escritos);
+            if (sincronizar) {
+                canal.force(false);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Codifica un usuario como un registro del journal, con su cabecera de longitud y CRC32.
+     *
+     * @param usuario El usuario a codificar.
+     * @return El registro listo para escribir.
+     * @throws IOException Si ocurre un error al codificar los campos.
+     * @since 1.1
+     */
+    private static ByteBuffer registro(Usuario usuario) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream datos = new DataOutputStream(bytes)) {
+            datos.writeInt(usuario.getUsuarioId());
+            datos.writeUTF(texto(usuario.getNombreUsuario()));
+            datos.writeUTF(texto(usuario.getCorreo()));
+            datos.writeUTF(texto(usuario.getTelefono()));
+        }
+        byte[] contenido = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(contenido);
+
+        ByteBuffer registro = ByteBuffer.allocate(CABECERA + contenido.length);
+        registro.putInt(contenido.length).putInt((int) crc.getValue()).put(contenido).flip();
+        return registro;
+    }
+
+    /**
+     * Obtiene el tamaño actual del journal (sin contar el rotado).
+     *
+     * @return El tamaño en bytes.
+     * @throws IOException Si ocurre un error al consultar el archivo.
+     * @since 1.1
+     */
+    long tamano() throws IOException {
+        cerrojo.lock();
+        try {
+            return canal.size();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Aparta el journal actual como {@code .old} y empieza uno vacío.
+     * Si ya existía un journal rotado (de una compactación que no terminó), el actual se añade a su final.
+     *
+     * @throws IOException Si ocurre un error al mover o abrir los archivos.
+     * @since 1.1
+     */
+    void rotar() throws IOException {
+        cerrojo.lock();
+        try {
+            canal.force(true);
+            canal.close();
+            if (Files.exists(rotadoPath)) {
+                Files.write(rotadoPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, rotadoPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            canal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Elimina el journal rotado, una vez que sus registros ya están en la instantánea XML.
+     *
+     * @throws IOException Si ocurre un error al borrar el archivo.
+     * @since 1.1
+     */
+    void descartarRotado() throws IOException {
+        cerrojo.lock();
+        try {
+            Files.deleteIfExists(rotadoPath);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Cierra el journal.
+     *
+     * @throws IOException Si ocurre un error al cerrar el archivo.
+     * @since 1.1
+     */
+    void cerrar() throws IOException {
+        cerrojo.lock();
+        try {
+            if (canal != null) {
+                canal.close();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Lee los registros válidos de un archivo de journal y trunca lo que haya detrás del último registro válido.
+     *
+     * @param path Ruta del archivo.
+     * @param usuarios Lista en la que se añaden los usuarios leídos.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     * @since 1.1
+     */
+    private static void leer(Path path, List<Usuario> usuarios) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel lectura = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+            long posicion = 0;
+            long tamano = lectura.size();
+            while (posicion + CABECERA <= tamano) {
+                cabecera.clear();
+                lectura.read(cabecera, posicion);
+                cabecera.flip();
+                int longitud = cabecera.getInt();
+                int crcEsperado = cabecera.getInt();
+                if (longitud <= 0 || posicion + CABECERA + longitud > tamano) {
+                    break;
+                }
+
+                ByteBuffer contenido = ByteBuffer.allocate(longitud);
+                lectura.read(contenido, posicion + CABECERA);
+                CRC32 crc = new CRC32();
+                crc.update(contenido.array());
+                if ((int) crc.getValue() != crcEsperado) {
+                    break;
+                }
+
+                try (DataInputStream datos = new DataInputStream(new ByteArrayInputStream(contenido.array()))) {
+                    usuarios.add(new Usuario(datos.readInt(), nulo(datos.readUTF()), nulo(datos.readUTF()), nulo(datos.readUTF())));
+                }
+                posicion += CABECERA + longitud;
+            }
+            METRICAS.contarLeidos(posicion);
+            // Se descarta un posible registro a medias al final del archivo.
+            if (posicion < tamano) {
+                lectura.truncate(posicion);
+            }
+        }
+    }
+
+    private static String texto(String valor) {
+        return valor == null ? "" : valor;
+    }
+
+    private static String nulo(String valor) {
+        return valor.isEmpty() ? null : valor;
+    }
+}
@@ -0,0 +1,283 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import com.lvg.grandao_biblioteca.modelo.dto.Usuario;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Instantánea binaria compacta y versionada de los usuarios, pensada para leerse mediante mapeo en memoria.
+ * <p>
+ * Formato (big endian):
+ * <pre>
+ *     Cabecera: [magia "GDUS": 4 bytes][versión: int][número de usuarios: int]
+ *     Registros: [usuarioId: int][nombreUsuario][correo][telefono]
+ *                cada texto como [longitud: int, -1 si es nulo][bytes UTF-8]
+ *     Índice:    [usuarioId: int][posición del registro: long], ordenado por usuarioId
+ *     Pie:       [posición del índice: long][número de usuarios: int][magia "GDUS": 4 bytes]
+ * </pre>
+ * El índice del pie permite obtener un usuario por su ID con una búsqueda binaria, sin decodificar el resto.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class UsuarioSnapshotBinario {
+
+    private static final int MAGIA = 0x47445553; // "GDUS"
+    private static final int VERSION = 1;
+    private static final int CABECERA = Integer.BYTES * 3;
+    private static final int PIE = Long.BYTES + Integer.BYTES * 2;
+    private static final int ENTRADA_INDICE = Integer.BYTES + Long.BYTES;
+
+    // Bytes leídos y escritos, en las métricas del almacén de usuarios. Al estar mapeado en memoria,
+    // solo se cuentan como leídos los registros que se recorren o decodifican.
+    private static final MetricasAlmacen METRICAS = new MetricasAlmacen("xml");
+
+    private final MappedByteBuffer buffer;
+    private final int numeroUsuarios;
+    private final int posicionIndice;
+
+    /**
+     * Abre una instantánea binaria mapeándola en memoria.
+     * La apertura solo lee la cabecera y el pie, así que su coste no depende del número de usuarios.
+     *
+     * @param path Ruta del archivo binario.
+     * @throws IOException Si el archivo no se puede leer o no tiene un formato válido.
+     * @since 1.1
+     */
+    public UsuarioSnapshotBinario(Path path) throws IOException {
+        try (FileChannel canal = FileChannel.open(path, StandardOpenOption.READ)) {
+            // El mapeo sigue siendo válido después de cerrar el canal.
+            this.buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        if (buffer.capacity() < CABECERA + PIE || buffer.getInt(0) != MAGIA
+                || buffer.getInt(buffer.capacity() - Integer.BYTES) != MAGIA) {
+            throw new IOException("El archivo no es una instantánea de usuarios válida: " + path);
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Versión de instantánea no soportada: " + buffer.getInt(Integer.BYTES));
+        }
+        this.numeroUsuarios = buffer.getInt(Integer.BYTES * 2);
+        this.posicionIndice = Math.toIntExact(buffer.getLong(buffer.capacity() - PIE));
+    }
+
+    /**
+     * Obtiene el número de usuarios de la instantánea.
+     *
+     * @return El número de usuarios.
+     * @since 1.1
+     */
+    public int tamano() {
+        return numeroUsuarios;
+    }
+
+    /**
+     * Busca un usuario por su ID mediante una búsqueda binaria en el índice del pie.
+     *
+     * @param usuarioId El ID del usuario.
+     * @return El usuario, o {@code null} si no está en la instantánea.
+     * @since 1.1
+     */
+    public Usuario buscar(int usuarioId) {
+        int inferior = 0;
+        int superior = numeroUsuarios - 1;
+        while (inferior <= superior) {
+            int medio = (inferior + superior) >>> 1;
+            int entrada = posicionIndice + medio * ENTRADA_INDICE;
+            int id = buffer.getInt(entrada);
+            if (id < usuarioId) {
+                inferior = medio + 1;
+            } else if (id > usuarioId) {
+                superior = medio - 1;
+            } else {
+                int posicion = Math.toIntExact(buffer.getLong(entrada + Integer.BYTES));
+                METRICAS.contarLeidos(saltarRegistro(posicion) - posicion);
+                return leerRegistro(posicion);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recorre los usuarios en el orden en que se escribieron, decodificándolos de uno en uno.
+     *
+     * @param offset Número de usuarios que se saltan antes de empezar a entregarlos.
+     * @param limit Número máximo de usuarios a entregar, o un valor negativo para entregarlos todos.
+     * @param consumidor Función que recibe cada usuario.
+     * @since 1.1
+     */
+    public void recorrer(int offset, int limit, Consumer<Usuario> consumidor) {
+        int posicion = CABECERA;
+        int entregados = 0;
+        for (int i = 0; i < numeroUsuarios && (limit < 0 || entregados < limit); i++) {
+            if (i < offset) {
+                posicion = saltarRegistro(posicion);
+                continue;
+            }
+            consumidor.accept(leerRegistro(posicion));
+            posicion = saltarRegistro(posicion);
+            entregados++;
+        }
+        METRICAS.contarLeidos(posicion - CABECERA);
+    }
+
+    /**
+     * Lee todos los usuarios de la instantánea.
+     *
+     * @return La lista de usuarios.
+     * @since 1.1
+     */
+    public List<Usuario> leerTodos() {
+        List<Usuario> usuarios = new ArrayList<>(numeroUsuarios);
+        recorrer(0, -1, usuarios::add);
+        return usuarios;
+    }
+
+    /**
+     * Escribe una instantánea binaria con los usuarios indicados.
+     * Se escribe primero un archivo temporal en el mismo directorio y después se renombra de forma atómica.
+     *
+     * @param usuarios Los usuarios a escribir. Todos deben tener ID.
+     * @param path Ruta del archivo binario.
+     * @throws IOException Si algún usuario no tiene ID o si ocurre un error al escribir el archivo.
+     * @since 1.1
+     */
+    public static void escribir(List<Usuario> usuarios, Path path) throws IOException {
+        // El índice se ordena por ID, así que un usuario sin ID no se puede guardar; se comprueba antes de escribir.
+        for (int i = 0; i < usuarios.size(); i++) {
+            if (usuarios.get(i).getUsuarioId() == null) {
+                throw new IOException("El usuario " + (i + 1) + " (" + usuarios.get(i).getNombreUsuario()
+                        + ") no tiene usuario_id; la instantánea binaria necesita el ID de todos los usuarios");
+            }
+        }
+        Path temporal = Files.createTempFile(path.toAbsolutePath().getParent(), "usuarios", ".bin.tmp");
+        try {
+            // Cada clave guarda el ID en los 32 bits altos y el número de registro en los bajos,
+            // para poder ordenar el índice por ID con un array de primitivos.
+            long[] claves = new long[usuarios.size()];
+            long[] posiciones = new long[usuarios.size()];
+            long posicion = CABECERA;
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal), 1 << 16))) {
+                salida.writeInt(MAGIA);
+                salida.writeInt(VERSION);
+                salida.writeInt(usuarios.size());
+                for (int i = 0; i < usuarios.size(); i++) {
+                    Usuario usuario = usuarios.get(i);
+                    claves[i] = ((long) usuario.getUsuarioId() << 32) | i;
+                    posiciones[i] = posicion;
+                    salida.writeInt(usuario.getUsuarioId());
+                    posicion += Integer.BYTES;
+                    posicion += escribirTexto(salida, usuario.getNombreUsuario());
+                    posicion += escribirTexto(salida, usuario.getCorreo());
+                    posicion += escribirTexto(salida, usuario.getTelefono());
+                }
+
+                Arrays.sort(claves);
+                for (long clave : claves) {
+                    salida.writeInt((int) (clave >> 32));
+                    salida.writeLong(posiciones[(int) clave]);
+                }
+
+                salida.writeLong(posicion);
+                salida.writeInt(usuarios.size());
+                salida.writeInt(MAGIA);
+                METRICAS.contarEscritos(salida.size());
+            }
+            Files.move(temporal, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Decodifica el registro que empieza en una posición.
+     *
+     * @param posicion Posición del registro en el archivo.
+     * @return El usuario decodificado.
+     * @since 1.1
+     */
+    private Usuario leerRegistro(int posicion) {
+        int id = buffer.getInt(posicion);
+        posicion += Integer.BYTES;
+        String nombre = leerTexto(posicion);
+        posicion = saltarTexto(posicion);
+        String correo = leerTexto(posicion);
+        posicion = saltarTexto(posicion);
+        String telefono = leerTexto(posicion);
+        return new Usuario(id, nombre, correo, telefono);
+    }
+
+    /**
+     * Calcula la posición del registro siguiente sin decodificar el actual.
+     *
+     * @param posicion Posición del registro actual.
+     * @return Posición del registro siguiente.
+     * @since 1.1
+     */
+    private int saltarRegistro(int posicion) {
+        posicion += Integer.BYTES;
+        posicion = saltarTexto(posicion);
+        posicion = saltarTexto(posicion);
+        return saltarTexto(posicion);
+    }
+
+    /**
+     * Decodifica un texto con longitud prefijada.
+     *
+     * @param posicion Posición de la longitud del texto.
+     * @return El texto, o {@code null} si se guardó como nulo.
+     * @since 1.1
+     */
+    private String leerTexto(int posicion) {
+        int longitud = buffer.getInt(posicion);
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        buffer.get(posicion + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Calcula la posición siguiente a un texto con longitud prefijada.
+     *
+     * @param posicion Posición de la longitud del texto.
+     * @return Posición del campo siguiente.
+     * @since 1.1
+     */
+    private int saltarTexto(int posicion) {
+        return posicion + Integer.BYTES + Math.max(buffer.getInt(posicion), 0);
+    }
+
+    /**
+     * Escribe un texto como su longitud en bytes seguida de sus bytes UTF-8 (o -1 si es nulo).
+     *
+     * @param salida Flujo de salida.
+     * @param texto El texto a escribir.
+     * @return El número de bytes escritos.
+     * @throws IOException Si ocurre un error al escribir.
+     * @since 1.1
+     */
+    private static int escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return Integer.BYTES;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+        return Integer.BYTES + bytes.length;
+    }
+}
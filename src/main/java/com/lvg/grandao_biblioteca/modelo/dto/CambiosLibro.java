@@ -0,0 +1,156 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Clase que representa una modificación parcial de un libro.
+ * Solo se cambian los campos que no son nulos; la versión es obligatoria y debe ser la del libro que se leyó,
+ * para detectar si otro cliente lo ha modificado mientras tanto.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class CambiosLibro {
+
+    @Size(max = 255)
+    @Pattern(regexp = "^[A-Za-z]+( [A-Za-z]+)*$", message = "Título del libro no válido")
+    private String titulo;
+
+    @Size(max = 100)
+    private String genero;
+
+    @Size(max = 20)
+    private String isbn;
+
+    private Integer cantidad;
+
+    @NotNull(message = "La versión del libro es obligatoria")
+    private Integer version;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public CambiosLibro() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param titulo Nuevo título del libro, o nulo para no cambiarlo.
+     * @param genero Nuevo género del libro, o nulo para no cambiarlo.
+     * @param isbn Nuevo ISBN del libro, o nulo para no cambiarlo.
+     * @param cantidad Nueva cantidad del libro, o nulo para no cambiarla.
+     * @param version Versión del libro que se leyó.
+     * @since 1.1
+     */
+    public CambiosLibro(String titulo, String genero, String isbn, Integer cantidad, Integer version) {
+        this.titulo = titulo;
+        this.genero = genero;
+        this.isbn = isbn;
+        this.cantidad = cantidad;
+        this.version = version;
+    }
+
+    /**
+     * Obtiene el nuevo título del libro.
+     *
+     * @return El nuevo título, o nulo si no cambia.
+     * @since 1.1
+     */
+    public String getTitulo() {
+        return titulo;
+    }
+
+    /**
+     * Establece el nuevo título del libro.
+     *
+     * @param titulo El nuevo título.
+     * @since 1.1
+     */
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+    }
+
+    /**
+     * Obtiene el nuevo género del libro.
+     *
+     * @return El nuevo género, o nulo si no cambia.
+     * @since 1.1
+     */
+    public String getGenero() {
+        return genero;
+    }
+
+    /**
+     * Establece el nuevo género del libro.
+     *
+     * @param genero El nuevo género.
+     * @since 1.1
+     */
+    public void setGenero(String genero) {
+        this.genero = genero;
+    }
+
+    /**
+     * Obtiene el nuevo ISBN del libro.
+     *
+     * @return El nuevo ISBN, o nulo si no cambia.
+     * @since 1.1
+     */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * Establece el nuevo ISBN del libro.
+     *
+     * @param isbn El nuevo ISBN, con o sin guiones.
+     * @since 1.1
+     */
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    /**
+     * Obtiene la nueva cantidad del libro.
+     *
+     * @return La nueva cantidad, o nulo si no cambia.
+     * @since 1.1
+     */
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Establece la nueva cantidad del libro.
+     *
+     * @param cantidad La nueva cantidad.
+     * @since 1.1
+     */
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Obtiene la versión del libro que se leyó.
+     *
+     * @return La versión del libro.
+     * @since 1.1
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión del libro que se leyó.
+     *
+     * @param version La versión del libro.
+     * @since 1.1
+     */
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
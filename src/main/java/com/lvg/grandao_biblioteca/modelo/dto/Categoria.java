@@ -1,6 +1,5 @@
 package com.lvg.grandao_biblioteca.modelo.dto;
 
-import com.lvg.grandao_biblioteca.modelo.dao.CategoriaDAO;
 import jakarta.validation.constraints.NotNull;
 
 /**
@@ -8,9 +7,9 @@ import jakarta.validation.constraints.NotNull;
  * Contiene el ID y nombre de la categoría.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
-public class Categoria extends CategoriaDAO {
+public class Categoria {
 
     @NotNull(message = "El ID de la categoria es obligatorio")
     private Long categoriaId;
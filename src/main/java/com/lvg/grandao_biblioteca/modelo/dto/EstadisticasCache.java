@@ -0,0 +1,107 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+/**
+ * Clase que representa las estadísticas de uso de una caché.
+ * Contiene los aciertos, los fallos, la proporción de aciertos y el número de invalidaciones.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class EstadisticasCache {
+
+    private long aciertos;
+    private long fallos;
+    private long invalidaciones;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public EstadisticasCache() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param aciertos Número de consultas servidas desde la caché.
+     * @param fallos Número de consultas que han tenido que leer el archivo.
+     * @param invalidaciones Número de veces que se ha invalidado la caché.
+     * @since 1.1
+     */
+    public EstadisticasCache(long aciertos, long fallos, long invalidaciones) {
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.invalidaciones = invalidaciones;
+    }
+
+    /**
+     * Obtiene el número de consultas servidas desde la caché.
+     *
+     * @return El número de aciertos.
+     * @since 1.1
+     */
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    /**
+     * Establece el número de consultas servidas desde la caché.
+     *
+     * @param aciertos El número de aciertos.
+     * @since 1.1
+     */
+    public void setAciertos(long aciertos) {
+        this.aciertos = aciertos;
+    }
+
+    /**
+     * Obtiene el número de consultas que han tenido que leer el archivo.
+     *
+     * @return El número de fallos.
+     * @since 1.1
+     */
+    public long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * Establece el número de consultas que han tenido que leer el archivo.
+     *
+     * @param fallos El número de fallos.
+     * @since 1.1
+     */
+    public void setFallos(long fallos) {
+        this.fallos = fallos;
+    }
+
+    /**
+     * Obtiene el número de veces que se ha invalidado la caché.
+     *
+     * @return El número de invalidaciones.
+     * @since 1.1
+     */
+    public long getInvalidaciones() {
+        return invalidaciones;
+    }
+
+    /**
+     * Establece el número de veces que se ha invalidado la caché.
+     *
+     * @param invalidaciones El número de invalidaciones.
+     * @since 1.1
+     */
+    public void setInvalidaciones(long invalidaciones) {
+        this.invalidaciones = invalidaciones;
+    }
+
+    /**
+     * Obtiene la proporción de consultas servidas desde la caché.
+     *
+     * @return Un valor entre 0 y 1, o 0 si todavía no ha habido consultas.
+     * @since 1.1
+     */
+    public double getRatioAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+}
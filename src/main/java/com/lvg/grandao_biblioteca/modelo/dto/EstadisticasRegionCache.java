@@ -0,0 +1,152 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+/**
+ * Clase que representa las estadísticas de una región de la caché de segundo nivel de Hibernate.
+ * Contiene los aciertos, los fallos, las escrituras, los desalojos y la proporción de aciertos de la región.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class EstadisticasRegionCache {
+    private String region;
+    private long aciertos;
+    private long fallos;
+    private long escrituras;
+    private long desalojos;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public EstadisticasRegionCache() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param region Nombre de la región.
+     * @param aciertos Número de lecturas servidas desde la región.
+     * @param fallos Número de lecturas que no han encontrado la entrada en la región.
+     * @param escrituras Número de entradas guardadas en la región.
+     * @param desalojos Número de entradas desalojadas por tamaño o caducidad.
+     * @since 1.1
+     */
+    public EstadisticasRegionCache(String region, long aciertos, long fallos, long escrituras, long desalojos) {
+        this.region = region;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.escrituras = escrituras;
+        this.desalojos = desalojos;
+    }
+
+    /**
+     * Obtiene el nombre de la región.
+     *
+     * @return El nombre de la región.
+     * @since 1.1
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Establece el nombre de la región.
+     *
+     * @param region El nombre de la región.
+     * @since 1.1
+     */
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    /**
+     * Obtiene el número de lecturas servidas desde la región.
+     *
+     * @return El número de aciertos.
+     * @since 1.1
+     */
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    /**
+     * Establece el número de lecturas servidas desde la región.
+     *
+     * @param aciertos El número de aciertos.
+     * @since 1.1
+     */
+    public void setAciertos(long aciertos) {
+        this.aciertos = aciertos;
+    }
+
+    /**
+     * Obtiene el número de lecturas que no han encontrado la entrada en la región.
+     *
+     * @return El número de fallos.
+     * @since 1.1
+     */
+    public long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * Establece el número de lecturas que no han encontrado la entrada en la región.
+     *
+     * @param fallos El número de fallos.
+     * @since 1.1
+     */
+    public void setFallos(long fallos) {
+        this.fallos = fallos;
+    }
+
+    /**
+     * Obtiene el número de entradas guardadas en la región.
+     *
+     * @return El número de escrituras.
+     * @since 1.1
+     */
+    public long getEscrituras() {
+        return escrituras;
+    }
+
+    /**
+     * Establece el número de entradas guardadas en la región.
+     *
+     * @param escrituras El número de escrituras.
+     * @since 1.1
+     */
+    public void setEscrituras(long escrituras) {
+        this.escrituras = escrituras;
+    }
+
+    /**
+     * Obtiene el número de entradas desalojadas por tamaño o caducidad.
+     *
+     * @return El número de desalojos.
+     * @since 1.1
+     */
+    public long getDesalojos() {
+        return desalojos;
+    }
+
+    /**
+     * Establece el número de entradas desalojadas por tamaño o caducidad.
+     *
+     * @param desalojos El número de desalojos.
+     * @since 1.1
+     */
+    public void setDesalojos(long desalojos) {
+        this.desalojos = desalojos;
+    }
+
+    /**
+     * Obtiene la proporción de lecturas servidas desde la región.
+     *
+     * @return Un valor entre 0 y 1, o 0 si todavía no ha habido lecturas.
+     * @since 1.1
+     */
+    public double getRatioAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+}
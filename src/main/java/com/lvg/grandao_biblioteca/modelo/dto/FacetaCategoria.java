@@ -0,0 +1,118 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+/**
+ * Clase que representa la faceta de una categoría: cuántos libros tiene y cuántos ejemplares suman.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class FacetaCategoria {
+
+    private Long categoriaId;
+    private String nombreCategoria;
+    private long libros;
+    private long cantidad;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public FacetaCategoria() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param categoriaId ID de la categoría.
+     * @param nombreCategoria Nombre de la categoría.
+     * @param libros Número de libros de la categoría.
+     * @param cantidad Suma de la cantidad de ejemplares de esos libros.
+     * @since 1.1
+     */
+    public FacetaCategoria(Long categoriaId, String nombreCategoria, long libros, long cantidad) {
+        this.categoriaId = categoriaId;
+        this.nombreCategoria = nombreCategoria;
+        this.libros = libros;
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Obtiene el ID de la categoría.
+     *
+     * @return El ID de la categoría.
+     * @since 1.1
+     */
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    /**
+     * Establece el ID de la categoría.
+     *
+     * @param categoriaId El ID de la categoría.
+     * @since 1.1
+     */
+    public void setCategoriaId(Long categoriaId) {
+        this.categoriaId = categoriaId;
+    }
+
+    /**
+     * Obtiene el nombre de la categoría.
+     *
+     * @return El nombre de la categoría.
+     * @since 1.1
+     */
+    public String getNombreCategoria() {
+        return nombreCategoria;
+    }
+
+    /**
+     * Establece el nombre de la categoría.
+     *
+     * @param nombreCategoria El nombre de la categoría.
+     * @since 1.1
+     */
+    public void setNombreCategoria(String nombreCategoria) {
+        this.nombreCategoria = nombreCategoria;
+    }
+
+    /**
+     * Obtiene el número de libros de la categoría.
+     *
+     * @return El número de libros.
+     * @since 1.1
+     */
+    public long getLibros() {
+        return libros;
+    }
+
+    /**
+     * Establece el número de libros de la categoría.
+     *
+     * @param libros El número de libros.
+     * @since 1.1
+     */
+    public void setLibros(long libros) {
+        this.libros = libros;
+    }
+
+    /**
+     * Obtiene la suma de la cantidad de ejemplares de los libros de la categoría.
+     *
+     * @return La cantidad total de ejemplares.
+     * @since 1.1
+     */
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Establece la suma de la cantidad de ejemplares de los libros de la categoría.
+     *
+     * @param cantidad La cantidad total de ejemplares.
+     * @since 1.1
+     */
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+}
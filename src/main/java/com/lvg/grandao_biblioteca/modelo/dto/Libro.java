@@ -1,25 +1,45 @@
 package com.lvg.grandao_biblioteca.modelo.dto;
 
+import com.lvg.grandao_biblioteca.util.Isbn;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Clase que representa un libro en el sistema.
  * Contiene información como el ID, título, género, ISBN, y la cantidad de copias disponibles.
+ * <p>
+ * Los IDs se toman de la secuencia {@code libros_seq} en bloques de 50 (optimizador pooled-lo), en lugar de usar
+ * el AUTO_INCREMENT de la columna, para que Hibernate conozca el ID antes de insertar y pueda agrupar las
+ * inserciones en lotes JDBC.
+ * <p>
+ * Los libros se guardan en la caché de segundo nivel de Hibernate, en la región {@code libros}, así que las
+ * búsquedas por ID no van a la base de datos si el libro está en caché. Hibernate la invalida con cada
+ * alta, modificación o baja que pase por él.
+ * <p>
+ * La columna {@code version} sirve para el bloqueo optimista: cada UPDATE comprueba que la versión no ha cambiado
+ * desde que se leyó el libro y la incrementa, así que dos modificaciones concurrentes no se pisan. Las UPDATE solo
+ * incluyen las columnas que han cambiado ({@link DynamicUpdate}).
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @Entity
 @Table(name = "Libros")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "libros")
+@DynamicUpdate
 public class Libro {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "libros_seq")
+    @SequenceGenerator(name = "libros_seq", sequenceName = "libros_seq", allocationSize = 50)
     @Column(name = "libro_id", nullable = false)
     private Integer id;
 
@@ -44,6 +64,10 @@ public class Libro {
     @NotNull(message = "La cantidad de libros es obligatoria")
     private Integer cantidad;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
     /**
      * Constructor vacío.
      *
@@ -62,11 +86,13 @@ public class Libro {
      * @since 1.0
      */
     public Libro(Integer id, String titulo, String genero, String isbn, Integer cantidad) {
-        setId(id);
-        setTitulo(titulo);
-        setGenero(genero);
-        setIsbn(isbn);
-        setCantidad(cantidad);
+        // Se asigna directamente en vez de con los setters, que una subclase (un proxy de Hibernate) podría
+        // sobrescribir antes de que el objeto esté construido.
+        this.id = id;
+        this.titulo = titulo;
+        this.genero = genero;
+        this.isbn = canonizarIsbn(isbn);
+        this.cantidad = cantidad;
     }
 
     /**
@@ -140,17 +166,24 @@ public class Libro {
     }
 
     /**
-     * Establece el ISBN para el libro, validando previamente que sea un ISBN válido.
+     * Establece el ISBN para el libro, validando previamente que sea un ISBN-10 o ISBN-13 válido.
+     * Se guarda en su forma canónica, el ISBN-13 sin guiones (ver {@link Isbn#canonizar(CharSequence)}), para que
+     * el índice único de la columna sirva para buscar por ISBN y detecte también los duplicados escritos de otra forma.
      *
      * @param isbn El ISBN del libro.
+     * @throws IllegalArgumentException Si el ISBN no es válido.
      * @since 1.0
      */
     public void setIsbn(@Size(max = 20) String isbn) {
-        if (verificarIsbn(isbn)) {
-            this.isbn = isbn;
-        } else {
+        this.isbn = canonizarIsbn(isbn);
+    }
+
+    private static String canonizarIsbn(String isbn) {
+        String canonico = Isbn.canonizar(isbn);
+        if (canonico == null) {
             throw new IllegalArgumentException("El ISBN del libro no es válido");
         }
+        return canonico;
     }
 
     /**
@@ -173,75 +206,23 @@ public class Libro {
         this.cantidad = cantidad;
     }
 
-        /**
-         * Verifica si el ISBN proporcionado es válido.
-         * Soporta tanto ISBN-10 como ISBN-13.
-         *
-         * @param isbn El ISBN a verificar.
-         * @return {@code true} si el ISBN es válido, {@code false} si no lo es.
-         * @since 1.0
-         */
-        public boolean verificarIsbn(String isbn) {
-            // Primero, eliminamos los guiones y espacios en blanco
-            isbn = isbn.replaceAll("[^0-9X]", "");
-
-            // Verificar si es un ISBN-13 (13 dígitos)
-            if (isbn.length() == 13 && isbn.matches("\\d{13}")) {
-                return validarIsbn13(isbn);
-            }
-
-            // Verificar si es un ISBN-10 (10 dígitos, con la posibilidad de que el último sea 'X')
-            if (isbn.length() == 10 && isbn.matches("\\d{9}[0-9X]")) {
-                return validarIsbn10(isbn);
-            }
-
-            // Si no es ni ISBN-10 ni ISBN-13 válido
-            return false;
-        }
-
-        /**
-         * Valida un ISBN-13 usando el algoritmo estándar.
-         * La validación se realiza sumando los dígitos del ISBN con pesos alternados de 1 y 3,
-         * y verificando si la suma es divisible por 10.
-         *
-         * @param isbn El ISBN-13 a validar.
-         * @return {@code true} si el ISBN-13 es válido, {@code false} si no lo es.
-         * @since 1.0
-         */
-        private boolean validarIsbn13(String isbn) {
-            int suma = 0;
-            for (int i = 0; i < 13; i++) {
-                int digito = Character.getNumericValue(isbn.charAt(i));
-                if (i % 2 == 0) {
-                    suma += digito; // Suma de los dígitos en las posiciones impares (empezando en 0)
-                } else {
-                    suma += digito * 3; // Suma de los dígitos en las posiciones pares multiplicados por 3
-                }
-            }
-            return suma % 10 == 0;
-        }
+    /**
+     * Obtiene la versión del libro, que se incrementa con cada modificación.
+     *
+     * @return La versión del libro, o nulo si aún no se ha guardado.
+     * @since 1.1
+     */
+    public Integer getVersion() {
+        return version;
+    }
 
-        /**
-         * Valida un ISBN-10 usando el algoritmo estándar.
-         * La validación se realiza sumando los primeros 9 dígitos con pesos decrecientes del 10 al 2,
-         * y luego añadiendo el último dígito, que puede ser un número o 'X'.
-         * Si el último dígito es 'X', se considera como 10.
-         * La suma total debe ser divisible por 11.
-         *
-         * @param isbn El ISBN-10 a validar.
-         * @return {@code true} si el ISBN-10 es válido, {@code false} si no lo es.
-         * @since 1.0
-         */
-        private boolean validarIsbn10(String isbn) {
-            int suma = 0;
-            for (int i = 0; i < 9; i++) {
-                suma += (10 - i) * Character.getNumericValue(isbn.charAt(i));
-            }
-
-            // El último dígito puede ser 'X' (representa el 10 en el cálculo)
-            int ultimoDigito = isbn.charAt(9) == 'X' ? 10 : Character.getNumericValue(isbn.charAt(9));
-            suma += ultimoDigito;
-
-            return suma % 11 == 0;
-        }
+    /**
+     * Establece la versión del libro. Al modificar un libro, debe ser la versión que se leyó.
+     *
+     * @param version La versión del libro.
+     * @since 1.1
+     */
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
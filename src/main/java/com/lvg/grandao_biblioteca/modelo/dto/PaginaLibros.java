@@ -0,0 +1,75 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+import java.util.List;
+
+/**
+ * Clase que representa una página de libros obtenida por cursor.
+ * Contiene los libros de la página y el cursor para pedir la siguiente, que es nulo si no hay más libros.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class PaginaLibros {
+
+    private List<Libro> libros;
+    private String siguiente;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public PaginaLibros() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param libros Libros de la página, ordenados por ID.
+     * @param siguiente Cursor opaco de la siguiente página, o nulo si es la última.
+     * @since 1.1
+     */
+    public PaginaLibros(List<Libro> libros, String siguiente) {
+        this.libros = libros;
+        this.siguiente = siguiente;
+    }
+
+    /**
+     * Obtiene los libros de la página.
+     *
+     * @return Los libros de la página, ordenados por ID.
+     * @since 1.1
+     */
+    public List<Libro> getLibros() {
+        return libros;
+    }
+
+    /**
+     * Establece los libros de la página.
+     *
+     * @param libros Los libros de la página.
+     * @since 1.1
+     */
+    public void setLibros(List<Libro> libros) {
+        this.libros = libros;
+    }
+
+    /**
+     * Obtiene el cursor de la siguiente página.
+     *
+     * @return El cursor opaco de la siguiente página, o nulo si es la última.
+     * @since 1.1
+     */
+    public String getSiguiente() {
+        return siguiente;
+    }
+
+    /**
+     * Establece el cursor de la siguiente página.
+     *
+     * @param siguiente El cursor opaco de la siguiente página.
+     * @since 1.1
+     */
+    public void setSiguiente(String siguiente) {
+        this.siguiente = siguiente;
+    }
+}
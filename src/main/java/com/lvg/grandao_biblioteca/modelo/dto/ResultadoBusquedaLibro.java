@@ -0,0 +1,118 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+/**
+ * Clase que representa un libro encontrado en una búsqueda de texto completo.
+ * Contiene el ID, el título y el género del libro, y su relevancia para la búsqueda.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class ResultadoBusquedaLibro {
+    private Integer libroId;
+    private String titulo;
+    private String genero;
+    private double puntuacion;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public ResultadoBusquedaLibro() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param libroId ID del libro.
+     * @param titulo Título del libro.
+     * @param genero Género del libro.
+     * @param puntuacion Relevancia del libro para la búsqueda.
+     * @since 1.1
+     */
+    public ResultadoBusquedaLibro(Integer libroId, String titulo, String genero, double puntuacion) {
+        this.libroId = libroId;
+        this.titulo = titulo;
+        this.genero = genero;
+        this.puntuacion = puntuacion;
+    }
+
+    /**
+     * Obtiene el ID del libro.
+     *
+     * @return El ID del libro.
+     * @since 1.1
+     */
+    public Integer getLibroId() {
+        return libroId;
+    }
+
+    /**
+     * Establece el ID del libro.
+     *
+     * @param libroId El ID del libro.
+     * @since 1.1
+     */
+    public void setLibroId(Integer libroId) {
+        this.libroId = libroId;
+    }
+
+    /**
+     * Obtiene el título del libro.
+     *
+     * @return El título del libro.
+     * @since 1.1
+     */
+    public String getTitulo() {
+        return titulo;
+    }
+
+    /**
+     * Establece el título del libro.
+     *
+     * @param titulo El título del libro.
+     * @since 1.1
+     */
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+    }
+
+    /**
+     * Obtiene el género del libro.
+     *
+     * @return El género del libro.
+     * @since 1.1
+     */
+    public String getGenero() {
+        return genero;
+    }
+
+    /**
+     * Establece el género del libro.
+     *
+     * @param genero El género del libro.
+     * @since 1.1
+     */
+    public void setGenero(String genero) {
+        this.genero = genero;
+    }
+
+    /**
+     * Obtiene la relevancia del libro para la búsqueda.
+     *
+     * @return La relevancia del libro; cuanto mayor, más relevante.
+     * @since 1.1
+     */
+    public double getPuntuacion() {
+        return puntuacion;
+    }
+
+    /**
+     * Establece la relevancia del libro para la búsqueda.
+     *
+     * @param puntuacion La relevancia del libro; cuanto mayor, más relevante.
+     * @since 1.1
+     */
+    public void setPuntuacion(double puntuacion) {
+        this.puntuacion = puntuacion;
+    }
+}
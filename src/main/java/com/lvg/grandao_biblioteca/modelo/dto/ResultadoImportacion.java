@@ -0,0 +1,132 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+import java.util.List;
+
+/**
+ * Clase que representa el resultado de importar un elemento de un lote.
+ * Contiene la posición del elemento en el lote, el ID del usuario, el estado y, si lo hay, los errores.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class ResultadoImportacion {
+
+    /**
+     * Estados posibles de un elemento importado.
+     *
+     * @since 1.1
+     */
+    public enum Estado {
+        CREADO,
+        INVALIDO,
+        DUPLICADO
+    }
+
+    private int indice;
+    private Integer usuarioId;
+    private Estado estado;
+    private List<String> errores;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public ResultadoImportacion() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param indice Posición del elemento en el lote, empezando en 0.
+     * @param usuarioId ID del usuario.
+     * @param estado Estado del elemento.
+     * @param errores Errores encontrados, vacío si no hay ninguno.
+     * @since 1.1
+     */
+    public ResultadoImportacion(int indice, Integer usuarioId, Estado estado, List<String> errores) {
+        this.indice = indice;
+        this.usuarioId = usuarioId;
+        this.estado = estado;
+        this.errores = errores;
+    }
+
+    /**
+     * Obtiene la posición del elemento en el lote.
+     *
+     * @return La posición del elemento, empezando en 0.
+     * @since 1.1
+     */
+    public int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Establece la posición del elemento en el lote.
+     *
+     * @param indice La posición del elemento.
+     * @since 1.1
+     */
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+
+    /**
+     * Obtiene el ID del usuario.
+     *
+     * @return El ID del usuario.
+     * @since 1.1
+     */
+    public Integer getUsuarioId() {
+        return usuarioId;
+    }
+
+    /**
+     * Establece el ID del usuario.
+     *
+     * @param usuarioId El ID del usuario.
+     * @since 1.1
+     */
+    public void setUsuarioId(Integer usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    /**
+     * Obtiene el estado del elemento.
+     *
+     * @return El estado del elemento.
+     * @since 1.1
+     */
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Establece el estado del elemento.
+     *
+     * @param estado El estado del elemento.
+     * @since 1.1
+     */
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    /**
+     * Obtiene los errores encontrados.
+     *
+     * @return La lista de errores, vacía si no hay ninguno.
+     * @since 1.1
+     */
+    public List<String> getErrores() {
+        return errores;
+    }
+
+    /**
+     * Establece los errores encontrados.
+     *
+     * @param errores La lista de errores.
+     * @since 1.1
+     */
+    public void setErrores(List<String> errores) {
+        this.errores = errores;
+    }
+}
@@ -0,0 +1,96 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+/**
+ * Clase que representa el resultado de validar un ISBN.
+ * Contiene el ISBN tal como se recibió, si es válido y, si lo es, su forma canónica (ISBN-13 sin guiones).
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class ResultadoValidacionIsbn {
+
+    private String isbn;
+    private boolean valido;
+    private String isbn13;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public ResultadoValidacionIsbn() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param isbn ISBN recibido.
+     * @param valido Si el ISBN es un ISBN-10 o ISBN-13 válido.
+     * @param isbn13 ISBN-13 canónico, o nulo si el ISBN no es válido.
+     * @since 1.1
+     */
+    public ResultadoValidacionIsbn(String isbn, boolean valido, String isbn13) {
+        this.isbn = isbn;
+        this.valido = valido;
+        this.isbn13 = isbn13;
+    }
+
+    /**
+     * Obtiene el ISBN recibido.
+     *
+     * @return El ISBN tal como se recibió.
+     * @since 1.1
+     */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * Establece el ISBN recibido.
+     *
+     * @param isbn El ISBN recibido.
+     * @since 1.1
+     */
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    /**
+     * Indica si el ISBN es válido.
+     *
+     * @return {@code true} si es un ISBN-10 o ISBN-13 válido.
+     * @since 1.1
+     */
+    public boolean isValido() {
+        return valido;
+    }
+
+    /**
+     * Establece si el ISBN es válido.
+     *
+     * @param valido Si el ISBN es válido.
+     * @since 1.1
+     */
+    public void setValido(boolean valido) {
+        this.valido = valido;
+    }
+
+    /**
+     * Obtiene el ISBN-13 canónico.
+     *
+     * @return El ISBN-13 sin guiones, o nulo si el ISBN no es válido.
+     * @since 1.1
+     */
+    public String getIsbn13() {
+        return isbn13;
+    }
+
+    /**
+     * Establece el ISBN-13 canónico.
+     *
+     * @param isbn13 El ISBN-13 sin guiones.
+     * @since 1.1
+     */
+    public void setIsbn13(String isbn13) {
+        this.isbn13 = isbn13;
+    }
+}
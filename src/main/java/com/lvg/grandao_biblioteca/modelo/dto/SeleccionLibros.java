@@ -0,0 +1,108 @@
+package com.lvg.grandao_biblioteca.modelo.dto;
+
+import java.util.List;
+
+/**
+ * Clase que representa los criterios para seleccionar varios libros a la vez, por ejemplo para eliminarlos.
+ * Se seleccionan los libros que cumplen todos los criterios indicados; los nulos no se tienen en cuenta.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class SeleccionLibros {
+
+    private List<Integer> ids;
+    private String genero;
+    private Integer cantidad;
+
+    /**
+     * Constructor vacío.
+     *
+     * @since 1.1
+     */
+    public SeleccionLibros() {}
+
+    /**
+     * Constructor con todos los parámetros.
+     *
+     * @param ids IDs de los libros, o nulo para no filtrar por ID.
+     * @param genero Género de los libros, o nulo para no filtrar por género.
+     * @param cantidad Cantidad de copias de los libros, o nulo para no filtrar por cantidad.
+     * @since 1.1
+     */
+    public SeleccionLibros(List<Integer> ids, String genero, Integer cantidad) {
+        this.ids = ids;
+        this.genero = genero;
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Obtiene los IDs de los libros.
+     *
+     * @return Los IDs, o nulo si no se filtra por ID.
+     * @since 1.1
+     */
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * Establece los IDs de los libros.
+     *
+     * @param ids Los IDs de los libros.
+     * @since 1.1
+     */
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Obtiene el género de los libros.
+     *
+     * @return El género, o nulo si no se filtra por género.
+     * @since 1.1
+     */
+    public String getGenero() {
+        return genero;
+    }
+
+    /**
+     * Establece el género de los libros.
+     *
+     * @param genero El género de los libros.
+     * @since 1.1
+     */
+    public void setGenero(String genero) {
+        this.genero = genero;
+    }
+
+    /**
+     * Obtiene la cantidad de copias de los libros.
+     *
+     * @return La cantidad, o nulo si no se filtra por cantidad.
+     * @since 1.1
+     */
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Establece la cantidad de copias de los libros.
+     *
+     * @param cantidad La cantidad de copias de los libros.
+     * @since 1.1
+     */
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Indica si no hay ningún criterio, es decir, si se seleccionarían todos los libros.
+     *
+     * @return {@code true} si no se ha indicado ningún criterio.
+     * @since 1.1
+     */
+    public boolean estaVacia() {
+        return ids == null && genero == null && cantidad == null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dao.AutorReactivoRepository;
+import com.lvg.grandao_biblioteca.modelo.dto.Autor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versión reactiva de {@link AutorService}: las mismas operaciones sobre los autores, pero sin bloquear el hilo
+ * que las llama. Cada método devuelve un {@link Flux} o un {@link Mono} que no hace nada hasta que alguien se
+ * suscribe, y los autores se leen de MongoDB al ritmo al que se piden.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Service
+public class AutorReactivoService {
+
+    private final AutorReactivoRepository autorRepository;
+
+    /**
+     * Constructor del servicio.
+     *
+     * @param autorRepository Repositorio reactivo de autores.
+     * @since 1.1
+     */
+    public AutorReactivoService(AutorReactivoRepository autorRepository) {
+        this.autorRepository = autorRepository;
+    }
+
+    /**
+     * Crea un nuevo autor en la base de datos.
+     *
+     * @param autor El autor que se desea crear.
+     * @return El autor creado, que incluye el ID asignado por la base de datos.
+     * @since 1.1
+     */
+    public Mono<Autor> crearAutor(Autor autor) {
+        return autorRepository.save(autor);
+    }
+
+    /**
+     * Obtiene todos los autores, uno detrás de otro según se vayan pidiendo, sin cargarlos antes en una lista.
+     *
+     * @return Los autores almacenados en la base de datos.
+     * @since 1.1
+     */
+    public Flux<Autor> obtenerAutores() {
+        return autorRepository.findAll();
+    }
+
+    /**
+     * Obtiene un autor por su ID.
+     *
+     * @param id El identificador del autor a buscar.
+     * @return El autor, o vacío si no existe ningún autor con ese ID.
+     * @since 1.1
+     */
+    public Mono<Autor> obtenerAutorPorId(String id) {
+        return autorRepository.findById(id);
+    }
+
+    /**
+     * Actualiza la información de un autor existente.
+     *
+     * @param id El identificador del autor que se desea actualizar.
+     * @param autorActualizado El objeto autor con la nueva información.
+     * @return El autor actualizado, o vacío si el autor con el ID proporcionado no existe.
+     * @since 1.1
+     */
+    public Mono<Autor> actualizarAutor(String id, Autor autorActualizado) {
+        return autorRepository.existsById(id)
+                .filter(Boolean::booleanValue)
+                .flatMap(existe -> {
+                    autorActualizado.setId(id);
+                    return autorRepository.save(autorActualizado);
+                });
+    }
+
+    /**
+     * Elimina un autor de la base de datos con una sola operación, sin comprobar antes si existe.
+     *
+     * @param id El identificador del autor que se desea eliminar.
+     * @return true si el autor fue eliminado con éxito, o false si el autor no existe.
+     * @since 1.1
+     */
+    public Mono<Boolean> eliminarAutor(String id) {
+        return autorRepository.deleteAutorById(id).map(eliminados -> eliminados > 0);
+    }
+}
@@ -2,33 +2,116 @@ package com.lvg.grandao_biblioteca.service;
 
 import com.lvg.grandao_biblioteca.modelo.dao.CategoriaDAO;
 import com.lvg.grandao_biblioteca.modelo.dto.Categoria;
+import com.lvg.grandao_biblioteca.modelo.dto.EstadisticasCache;
+import com.lvg.grandao_biblioteca.modelo.dto.FacetaCategoria;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Servicio encargado de gestionar las operaciones relacionadas con las categorías.
  * Permite obtener categorías y agregar nuevas categorías al sistema.
+ * <p>
+ * La lista de categorías se guarda en caché junto con su ETag y su fecha de última modificación.
+ * La caché se invalida al agregar una categoría y cuando un {@link WatchService} detecta que el archivo
+ * de categorías se ha modificado desde fuera de la aplicación.
+ * <p>
+ * Si varias instancias de la aplicación comparten el archivo, cada lectura de la caché comprueba además la
+ * generación del archivo (una lectura de memoria), así que las categorías agregadas por otra instancia se ven
+ * en la siguiente petición aunque el vigilante no haya avisado todavía. Como el ETag incluye la generación,
+ * todas las instancias dan el mismo ETag para la misma versión del archivo.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @Service
 public class CategoriaService {
 
     private CategoriaDAO categoriaDAO;
+    private final FacetasCategorias facetasCategorias;
+
+    // Lista de categorías en caché, o null si hay que volver a leerla.
+    private volatile EntradaCache cache;
+
+    // Se incrementa en cada invalidación, para no guardar en caché una lectura que empezó antes de invalidar.
+    private final AtomicLong generacion = new AtomicLong();
+
+    // Hace atómicas la invalidación y la comprobación antes de guardar en caché. Es un cerrojo y no synchronized
+    // para que, con hilos virtuales, los que esperan no bloqueen su hilo portador.
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    private WatchService vigilante;
+
+    /**
+     * Lista de categorías junto con los datos necesarios para responder a peticiones condicionales.
+     *
+     * @param categorias Las líneas del archivo de categorías.
+     * @param diccionario Las mismas categorías, ya interpretadas.
+     * @param etag ETag de la lista, derivado de la generación, el tamaño y la fecha de modificación del archivo.
+     * @param ultimaModificacion Fecha de última modificación del archivo, en milisegundos desde la época.
+     * @since 1.1
+     */
+    public record ListaCategorias(List<String> categorias, DiccionarioCategorias diccionario, String etag,
+                                  long ultimaModificacion) {}
 
     /**
-     * Constructor vacío para la inicialización por Spring.
+     * Lista en caché junto con la generación del archivo de la que se leyó.
+     */
+    private record EntradaCache(ListaCategorias lista, long generacionArchivo) {}
+
+    /**
+     * Constructor para inyección de dependencias.
+     *
+     * @param facetasCategorias Los recuentos de libros por género.
+     * @param durabilidad Durabilidad de las categorías agregadas: ninguna, por_lotes o por_escritura.
+     * @param ventanaMs Tiempo que se espera a más categorías antes de forzar un lote a disco, o 0 para no esperar.
      * @since 1.0
      */
-    public CategoriaService() {
-        this.categoriaDAO = new CategoriaDAO();
+    @Autowired
+    public CategoriaService(FacetasCategorias facetasCategorias,
+                            @Value("${categorias.escritura.durabilidad:por_lotes}") String durabilidad,
+                            @Value("${categorias.escritura.ventana-ms:0}") long ventanaMs) {
+        this.categoriaDAO = new CategoriaDAO(CategoriaDAO.Durabilidad.valueOf(durabilidad.trim().toUpperCase()), ventanaMs);
+        this.facetasCategorias = facetasCategorias;
+        vigilar(categoriaDAO.obtenerRuta());
     }
 
 
+    /**
+     * Detiene la vigilancia del archivo de categorías y escribe las categorías pendientes al cerrar la aplicación.
+     *
+     * @since 1.1
+     */
+    @PreDestroy
+    public void cerrar() {
+        categoriaDAO.cerrar();
+        try {
+            if (vigilante != null) {
+                vigilante.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Obtiene la lista de todas las categorías.
      *
@@ -36,7 +119,85 @@ public class CategoriaService {
      * @since 1.0
      */
     public List<String> obtenerCategorias() {
-        return categoriaDAO.obtenerCategorias();
+        return obtenerListaCategorias().categorias();
+    }
+
+    /**
+     * Obtiene la lista de todas las categorías junto con su ETag y su fecha de última modificación.
+     * Si la lista está en caché y el archivo no ha cambiado de generación, no se accede al archivo.
+     *
+     * @return La lista de categorías con sus datos de versión.
+     * @since 1.1
+     */
+    public ListaCategorias obtenerListaCategorias() {
+        EntradaCache entrada = cache;
+        if (entrada != null) {
+            // Otra instancia puede haber escrito el archivo sin que el vigilante haya avisado todavía.
+            if (!categoriaDAO.estaDesactualizado() && entrada.generacionArchivo() == categoriaDAO.obtenerGeneracion()) {
+                aciertos.incrementAndGet();
+                return entrada.lista();
+            }
+            invalidar();
+        }
+        fallos.incrementAndGet();
+        long generacionLeida = generacion.get();
+        // Por si el archivo se ha modificado desde fuera y la invalidación ha llegado antes que el aviso del vigilante.
+        categoriaDAO.recargarSiHaCambiado();
+        // Si el DAO se recarga mientras se lee, la entrada queda con una generación antigua y se vuelve a leer.
+        long generacionArchivo = categoriaDAO.obtenerGeneracion();
+        List<String> categorias = List.copyOf(categoriaDAO.obtenerCategorias());
+        ListaCategorias actual = new ListaCategorias(categorias, new DiccionarioCategorias(categorias),
+                "\"" + Long.toHexString(generacionArchivo) + "-"
+                        + Long.toHexString(categoriaDAO.obtenerUltimaModificacion()) + "-"
+                        + Long.toHexString(categoriaDAO.obtenerTamano()) + "\"",
+                categoriaDAO.obtenerUltimaModificacion());
+        cerrojo.lock();
+        try {
+            if (generacion.get() == generacionLeida) {
+                cache = new EntradaCache(actual, generacionArchivo);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        return actual;
+    }
+
+    /**
+     * Obtiene el diccionario de categorías, que relaciona los IDs y los nombres de las categorías.
+     *
+     * @return El diccionario de categorías.
+     * @since 1.1
+     */
+    public DiccionarioCategorias obtenerDiccionario() {
+        return obtenerListaCategorias().diccionario();
+    }
+
+    /**
+     * Obtiene, para cada categoría, el número de libros de su género y la suma de su cantidad.
+     * Los recuentos se mantienen en memoria, así que no se consulta la base de datos.
+     *
+     * @return Las facetas de todas las categorías, ordenadas por ID.
+     * @since 1.1
+     */
+    public List<FacetaCategoria> obtenerFacetas() {
+        List<FacetaCategoria> facetas = new ArrayList<>();
+        for (Categoria categoria : obtenerDiccionario().categorias()) {
+            FacetasCategorias.Totales totales = facetasCategorias.obtener(categoria.getNombreCategoria());
+            facetas.add(new FacetaCategoria(categoria.getCategoriaId(), categoria.getNombreCategoria(),
+                    totales.libros(), totales.cantidad()));
+        }
+        return facetas;
+    }
+
+    /**
+     * Obtiene una categoría por su ID.
+     *
+     * @param id El ID de la categoría.
+     * @return Un Optional con la categoría encontrada, o vacío si no existe.
+     * @since 1.1
+     */
+    public Optional<Categoria> obtenerCategoriaPorId(Long id) {
+        return categoriaDAO.obtenerCategoriaPorId(id);
     }
 
     /**
@@ -47,5 +208,80 @@ public class CategoriaService {
      */
     public void agregarCategoria(Categoria categoria) {
         categoriaDAO.agregarCategoria(categoria);
+        invalidar();
+    }
+
+    /**
+     * Obtiene las estadísticas de uso de la caché de categorías.
+     *
+     * @return Los aciertos, fallos e invalidaciones de la caché.
+     * @since 1.1
+     */
+    public EstadisticasCache obtenerEstadisticasCache() {
+        return new EstadisticasCache(aciertos.get(), fallos.get(), invalidaciones.get());
+    }
+
+    /**
+     * Invalida la lista de categorías en caché.
+     *
+     * @since 1.1
+     */
+    private void invalidar() {
+        cerrojo.lock();
+        try {
+            generacion.incrementAndGet();
+            cache = null;
+            invalidaciones.incrementAndGet();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Empieza a vigilar el archivo de categorías en un hilo aparte.
+     * Cuando el archivo cambia, se recarga el DAO y se invalida la caché.
+     *
+     * @param archivo Ruta del archivo de categorías.
+     * @since 1.1
+     */
+    private void vigilar(Path archivo) {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        Path nombre = archivo.getFileName();
+        try {
+            vigilante = directorio.getFileSystem().newWatchService();
+            directorio.register(vigilante, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            // Sin vigilante, la caché solo se invalida al agregar categorías desde la aplicación.
+            e.printStackTrace();
+            return;
+        }
+
+        Thread hilo = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey clave = vigilante.take();
+                    boolean cambiado = false;
+                    for (WatchEvent<?> evento : clave.pollEvents()) {
+                        // Si se han perdido eventos, se asume que el archivo puede haber cambiado.
+                        if (evento.kind() == StandardWatchEventKinds.OVERFLOW || nombre.equals(evento.context())) {
+                            cambiado = true;
+                        }
+                    }
+                    // Los avisos de las categorías agregadas desde la aplicación no recargan nada,
+                    // porque el DAO ya conoce su tamaño y fecha de modificación.
+                    if (cambiado && categoriaDAO.recargarSiHaCambiado()) {
+                        invalidar();
+                    }
+                    if (!clave.reset()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Se ha cerrado el vigilante: termina el hilo.
+            }
+        }, "categorias-vigilante");
+        hilo.setDaemon(true);
+        hilo.start();
     }
 }
@@ -0,0 +1,89 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dto.Categoria;
+import com.lvg.grandao_biblioteca.util.Textos;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Diccionario inmutable de categorías, construido a partir de las líneas del archivo de categorías.
+ * Relaciona el ID de cada categoría con la categoría y su nombre normalizado (sin mayúsculas ni tildes) con su ID,
+ * de modo que el género de un libro se puede asociar a su categoría.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class DiccionarioCategorias {
+
+    private final Map<Long, Categoria> porId;
+    private final Map<String, Long> porNombre;
+
+    /**
+     * Construye el diccionario a partir de las líneas del archivo de categorías, con el formato
+     * {@code categoriaId,nombreCategoria}. Las líneas que no siguen ese formato (como la cabecera) se ignoran.
+     *
+     * @param lineas Las líneas del archivo de categorías.
+     * @since 1.1
+     */
+    public DiccionarioCategorias(List<String> lineas) {
+        Map<Long, Categoria> categorias = new TreeMap<>();
+        Map<String, Long> nombres = new HashMap<>();
+        for (String linea : lineas) {
+            int coma = linea.indexOf(',');
+            if (coma <= 0) {
+                continue;
+            }
+            try {
+                Long id = Long.parseLong(linea.substring(0, coma).trim());
+                String nombre = linea.substring(coma + 1).trim();
+                categorias.put(id, new Categoria(id, nombre));
+                nombres.put(Textos.normalizar(nombre), id);
+            } catch (NumberFormatException e) {
+                // La línea no empieza por un ID: se ignora.
+            }
+        }
+        this.porId = Collections.unmodifiableMap(categorias);
+        this.porNombre = Collections.unmodifiableMap(nombres);
+    }
+
+    /**
+     * Obtiene una categoría por su ID.
+     *
+     * @param categoriaId El ID de la categoría.
+     * @return Un Optional con la categoría, o vacío si no existe.
+     * @since 1.1
+     */
+    public Optional<Categoria> obtener(Long categoriaId) {
+        return Optional.ofNullable(porId.get(categoriaId));
+    }
+
+    /**
+     * Busca el ID de una categoría por su nombre, sin distinguir mayúsculas ni tildes.
+     *
+     * @param nombre El nombre de la categoría (por ejemplo, el género de un libro).
+     * @return Un Optional con el ID de la categoría, o vacío si no hay ninguna con ese nombre.
+     * @since 1.1
+     */
+    public Optional<Long> buscarIdPorNombre(String nombre) {
+        if (nombre == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(porNombre.get(Textos.normalizar(nombre)));
+    }
+
+    /**
+     * Obtiene todas las categorías, ordenadas por ID.
+     *
+     * @return Las categorías del diccionario.
+     * @since 1.1
+     */
+    public Collection<Categoria> categorias() {
+        return porId.values();
+    }
+}
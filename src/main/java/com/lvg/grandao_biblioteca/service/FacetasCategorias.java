@@ -0,0 +1,148 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dao.LibroRepository;
+import com.lvg.grandao_biblioteca.modelo.dto.Libro;
+import com.lvg.grandao_biblioteca.util.Textos;
+import com.lvg.grandao_biblioteca.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recuentos precalculados de libros por género: número de libros y suma de su cantidad.
+ * Los recuentos se cargan una sola vez al arrancar, con una consulta agrupada, y después se mantienen
+ * de forma incremental desde {@link LibroService} al crear, actualizar y eliminar libros.
+ * Los géneros se guardan normalizados (sin mayúsculas ni tildes), igual que en {@link DiccionarioCategorias}.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Service
+public class FacetasCategorias {
+
+    private final Map<String, Totales> porGenero = new ConcurrentHashMap<>();
+
+    /**
+     * Totales de un género.
+     *
+     * @param libros Número de libros.
+     * @param cantidad Suma de la cantidad de ejemplares de esos libros.
+     * @since 1.1
+     */
+    public record Totales(long libros, long cantidad) {
+
+        /**
+         * Totales vacíos.
+         *
+         * @since 1.1
+         */
+        public static final Totales CERO = new Totales(0, 0);
+
+        private Totales sumar(Totales otros) {
+            return new Totales(libros + otros.libros, cantidad + otros.cantidad);
+        }
+    }
+
+    /**
+     * Constructor para inyección de dependencias. Carga los recuentos iniciales con una consulta agrupada por género.
+     *
+     * @param libroRepository El repositorio de libros.
+     * @since 1.1
+     */
+    @Autowired
+    public FacetasCategorias(LibroRepository libroRepository) {
+        for (Object[] fila : libroRepository.contarPorGenero()) {
+            if (fila[0] != null) {
+                sumar((String) fila[0], new Totales(((Number) fila[1]).longValue(), ((Number) fila[2]).longValue()));
+            }
+        }
+    }
+
+    /**
+     * Obtiene los totales de un género.
+     *
+     * @param genero El género, sin importar mayúsculas ni tildes.
+     * @return Los totales del género, o {@link Totales#CERO} si no hay libros de ese género.
+     * @since 1.1
+     */
+    public Totales obtener(String genero) {
+        return porGenero.getOrDefault(Textos.normalizar(genero), Totales.CERO);
+    }
+
+    /**
+     * Registra un libro creado. Si hay una transacción en curso, el recuento se actualiza al confirmarla.
+     *
+     * @param libro El libro creado.
+     * @since 1.1
+     */
+    public void libroCreado(Libro libro) {
+        Totales totales = totales(libro);
+        String genero = libro.getGenero();
+        Transacciones.alConfirmar(() -> sumar(genero, totales));
+    }
+
+    /**
+     * Registra un cambio en el género o la cantidad de un libro.
+     * Si hay una transacción en curso, el recuento se actualiza al confirmarla.
+     *
+     * @param generoAnterior El género del libro antes del cambio.
+     * @param cantidadAnterior La cantidad del libro antes del cambio.
+     * @param libro El libro después del cambio.
+     * @since 1.1
+     */
+    public void libroActualizado(String generoAnterior, Integer cantidadAnterior, Libro libro) {
+        Totales anteriores = new Totales(-1, cantidadAnterior == null ? 0 : -cantidadAnterior);
+        Totales nuevos = totales(libro);
+        String genero = libro.getGenero();
+        Transacciones.alConfirmar(() -> {
+            sumar(generoAnterior, anteriores);
+            sumar(genero, nuevos);
+        });
+    }
+
+    /**
+     * Registra un cambio en la cantidad de un libro, sin cambio de género, como un préstamo o una devolución.
+     * Si hay una transacción en curso, el recuento se actualiza al confirmarla.
+     *
+     * @param genero El género del libro.
+     * @param diferencia Lo que ha cambiado la cantidad (negativo si ha disminuido).
+     * @since 1.1
+     */
+    public void cantidadCambiada(String genero, int diferencia) {
+        Totales totales = new Totales(0, diferencia);
+        Transacciones.alConfirmar(() -> sumar(genero, totales));
+    }
+
+    /**
+     * Registra un libro eliminado. Si hay una transacción en curso, el recuento se actualiza al confirmarla.
+     *
+     * @param genero El género del libro eliminado.
+     * @param cantidad La cantidad del libro eliminado.
+     * @since 1.1
+     */
+    public void libroEliminado(String genero, Integer cantidad) {
+        Totales totales = new Totales(-1, cantidad == null ? 0 : -cantidad);
+        Transacciones.alConfirmar(() -> sumar(genero, totales));
+    }
+
+    /**
+     * Suma unos totales a los de un género, de forma atómica.
+     *
+     * @param genero El género.
+     * @param totales Los totales a sumar (negativos para restar).
+     * @since 1.1
+     */
+    private void sumar(String genero, Totales totales) {
+        if (genero == null) {
+            return;
+        }
+        porGenero.merge(Textos.normalizar(genero), totales, Totales::sumar);
+    }
+
+
+    private static Totales totales(Libro libro) {
+        return new Totales(1, libro.getCantidad() == null ? 0 : libro.getCantidad());
+    }
+}
@@ -0,0 +1,221 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dao.LibroRepository;
+import com.lvg.grandao_biblioteca.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+
+/**
+ * Filtro de Bloom con contadores sobre los ISBN-13 canónicos de los libros.
+ * <p>
+ * Responde sin acceder a la base de datos si un ISBN seguro que no existe; si el filtro dice que puede existir,
+ * hay que confirmarlo con una consulta, porque hay falsos positivos (un 1 % con el tamaño previsto). Nunca hay
+ * falsos negativos para los ISBN ya insertados: cada ISBN se añade antes de insertar su libro y solo se quita
+ * después de confirmar su eliminación.
+ * <p>
+ * Cada posición es un contador de 4 bits en lugar de un bit, para poder quitar ISBN al eliminar libros.
+ * Un contador que llega a 15 ya no se decrementa, para no provocar falsos negativos. El filtro se dimensiona
+ * al arrancar para el doble de los libros que hay; si se supera, sigue sin dar falsos negativos, pero da más
+ * falsos positivos hasta que se vuelve a arrancar. No se reconstruye en marcha porque se perderían los ISBN de las
+ * inserciones que aún no se han confirmado.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Service
+public class FiltroIsbn {
+
+    // Número de posiciones por ISBN y número de funciones hash para un 1 % de falsos positivos.
+    private static final double POSICIONES_POR_ISBN = 9.6;
+    private static final int FUNCIONES_HASH = 7;
+
+    private static final int CAPACIDAD_MINIMA = 100_000;
+    private static final int MAX_CONTADOR = 15;
+
+    // ISBN que se leen por consulta al construir el filtro.
+    private static final int ISBN_POR_BLOQUE = 10000;
+
+    private final LibroRepository libroRepository;
+
+    // Las escrituras se hacen con el cerrojo del filtro; las consultas leen sin cerrojos, con lecturas acquire.
+    private final Contadores contadores;
+
+    /**
+     * Contadores del filtro, dos por byte. Cada byte se lee con semántica acquire y se escribe con semántica
+     * release, para que una consulta sin cerrojo vea los contadores que ha escrito otro hilo al añadir un ISBN.
+     */
+    private static final class Contadores {
+        private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+        private final byte[] nibbles;
+        private final long posiciones;
+
+        private Contadores(long capacidad) {
+            this.posiciones = Math.max(64, (long) Math.ceil(capacidad * POSICIONES_POR_ISBN));
+            this.nibbles = new byte[(int) ((posiciones + 1) / 2)];
+        }
+
+        private void incrementar(String isbn) {
+            long[] hash = hash(isbn);
+            for (int i = 0; i < FUNCIONES_HASH; i++) {
+                long posicion = posicion(hash, i, posiciones);
+                int valor = leer(posicion);
+                if (valor < MAX_CONTADOR) {
+                    escribir(posicion, valor + 1);
+                }
+            }
+        }
+
+        private void decrementar(String isbn) {
+            long[] hash = hash(isbn);
+            for (int i = 0; i < FUNCIONES_HASH; i++) {
+                long posicion = posicion(hash, i, posiciones);
+                int valor = leer(posicion);
+                // Un contador saturado puede representar más ISBN de los que cuenta, así que no se decrementa.
+                if (valor > 0 && valor < MAX_CONTADOR) {
+                    escribir(posicion, valor - 1);
+                }
+            }
+        }
+
+        private int leer(long posicion) {
+            int b = (byte) BYTES.getAcquire(nibbles, (int) (posicion >>> 1));
+            return (posicion & 1) == 0 ? b & 0x0F : (b >>> 4) & 0x0F;
+        }
+
+        private void escribir(long posicion, int valor) {
+            int i = (int) (posicion >>> 1);
+            int b = (byte) BYTES.getAcquire(nibbles, i);
+            BYTES.setRelease(nibbles, i, (byte) ((posicion & 1) == 0 ? (b & 0xF0) | valor : (b & 0x0F) | (valor << 4)));
+        }
+    }
+
+    /**
+     * Constructor para inyección de dependencias. Construye el filtro con los ISBN de todos los libros.
+     *
+     * @param libroRepository El repositorio de libros.
+     * @since 1.1
+     */
+    @Autowired
+    public FiltroIsbn(LibroRepository libroRepository) {
+        this.libroRepository = libroRepository;
+        this.contadores = construir();
+    }
+
+    /**
+     * Indica si un ISBN puede estar en la base de datos.
+     *
+     * @param isbn El ISBN-13 canónico.
+     * @return {@code false} si seguro que no está; {@code true} si puede estar.
+     * @since 1.1
+     */
+    public boolean podriaContener(String isbn) {
+        long[] hash = hash(isbn);
+        for (int i = 0; i < FUNCIONES_HASH; i++) {
+            if (contadores.leer(posicion(hash, i, contadores.posiciones)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registra el ISBN de un libro que se va a insertar. Se añade al filtro en el momento, antes de confirmar
+     * la transacción, para que nunca haya en la base de datos un libro cuyo ISBN no esté en el filtro; si la
+     * transacción se deshace, el ISBN se queda en el filtro, lo que solo añade algún falso positivo.
+     *
+     * @param isbn El ISBN-13 canónico.
+     * @since 1.1
+     */
+    public void libroCreado(String isbn) {
+        agregar(isbn);
+    }
+
+    /**
+     * Registra un cambio de ISBN. El nuevo se añade en el momento y el anterior se quita al confirmar la transacción.
+     *
+     * @param isbnAnterior El ISBN-13 canónico antes del cambio, o nulo si no tenía.
+     * @param isbn El ISBN-13 canónico después del cambio.
+     * @since 1.1
+     */
+    public void libroActualizado(String isbnAnterior, String isbn) {
+        if (!isbn.equals(isbnAnterior)) {
+            agregar(isbn);
+            if (isbnAnterior != null) {
+                Transacciones.alConfirmar(() -> quitar(isbnAnterior));
+            }
+        }
+    }
+
+    /**
+     * Registra un libro eliminado. Su ISBN se quita del filtro al confirmar la transacción.
+     *
+     * @param isbn El ISBN-13 canónico del libro eliminado.
+     * @since 1.1
+     */
+    public void libroEliminado(String isbn) {
+        Transacciones.alConfirmar(() -> quitar(isbn));
+    }
+
+    private synchronized void agregar(String isbn) {
+        contadores.incrementar(isbn);
+    }
+
+    private synchronized void quitar(String isbn) {
+        contadores.decrementar(isbn);
+    }
+
+    /**
+     * Construye el filtro con los ISBN de todos los libros, leídos por ID en bloques.
+     *
+     * @return Los contadores del filtro.
+     * @since 1.1
+     */
+    private Contadores construir() {
+        Contadores nuevos = new Contadores(Math.max(CAPACIDAD_MINIMA, libroRepository.count() * 2));
+        int ultimo = 0;
+        List<Object[]> bloque;
+        do {
+            bloque = libroRepository.obtenerIsbnDesde(ultimo, Limit.of(ISBN_POR_BLOQUE));
+            for (Object[] fila : bloque) {
+                ultimo = (Integer) fila[0];
+                if (fila[1] != null) {
+                    nuevos.incrementar((String) fila[1]);
+                }
+            }
+        } while (bloque.size() == ISBN_POR_BLOQUE);
+        return nuevos;
+    }
+
+    /**
+     * Calcula dos hash de 64 bits del ISBN, de los que se derivan todas las posiciones (doble hash).
+     */
+    private static long[] hash(String isbn) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < isbn.length(); i++) {
+            h = (h ^ isbn.charAt(i)) * 0x100000001b3L;
+        }
+        return new long[] {mezclar(h), mezclar(h ^ 0x9e3779b97f4a7c15L) | 1};
+    }
+
+    private static long posicion(long[] hash, int i, long posiciones) {
+        return Math.floorMod(hash[0] + i * hash[1], posiciones);
+    }
+
+    /**
+     * Mezcla final de MurmurHash3, para repartir bien los bits del hash.
+     */
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,451 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dao.LibroRepository;
+import com.lvg.grandao_biblioteca.modelo.dto.Libro;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoBusquedaLibro;
+import com.lvg.grandao_biblioteca.util.Textos;
+import com.lvg.grandao_biblioteca.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice invertido en memoria sobre el título y el género de los libros, para búsquedas de texto completo.
+ * <p>
+ * Los textos se dividen en palabras sin mayúsculas ni tildes (igual que en {@link IndiceUsuarios}), así que
+ * "dialogos" encuentra "Diálogos de Platón". Para cada palabra se guarda la lista de libros que la contienen,
+ * ordenada por ID, con su peso en cada uno (las palabras del título pesan más que las del género). Una búsqueda
+ * devuelve los libros que contienen todas las palabras de la consulta, ordenados por relevancia; la última palabra
+ * de la consulta también vale como prefijo, para poder buscar mientras se escribe.
+ * <p>
+ * Las listas son arrays de enteros inmutables: las búsquedas las recorren sin cerrojos ni objetos intermedios,
+ * intersecándolas por ID. Los cambios de libros de una transacción se acumulan y, al confirmarla, cada lista
+ * afectada se sustituye una sola vez por una copia con todos ellos, en lugar de copiarla una vez por cada libro.
+ * <p>
+ * El índice se construye al arrancar, leyendo solo el ID, el título y el género de los libros por bloques,
+ * y después se mantiene desde {@link LibroService} al crear, actualizar y eliminar libros.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Service
+public class IndiceLibros {
+
+    // Libros que se leen por consulta al construir el índice.
+    private static final int LIBROS_POR_BLOQUE = 10000;
+
+    private static final int PESO_TITULO = 2;
+    private static final int PESO_GENERO = 1;
+
+    // Palabras que expanden como máximo un prefijo, para que una consulta de una letra no recorra todo el índice.
+    private static final int MAX_EXPANSIONES_PREFIJO = 64;
+
+    /** Posición máxima ({@code offset + limite}) a la que puede llegar una búsqueda. */
+    public static final int MAX_RESULTADOS = 10000;
+
+    private final Map<Integer, Documento> documentos = new ConcurrentHashMap<>();
+
+    // Para cada palabra, los libros que la contienen. Ordenado, para buscar por prefijo.
+    private final NavigableMap<String, Lista> palabras = new ConcurrentSkipListMap<>();
+
+    /**
+     * Libro indexado: lo necesario para devolverlo en los resultados y para quitarlo del índice.
+     */
+    private record Documento(String titulo, String genero, Map<String, Integer> pesos) {}
+
+    /**
+     * Lista inmutable de los libros que contienen una palabra, ordenada por ID, con el peso de la palabra en cada uno.
+     */
+    private record Lista(int[] ids, int[] pesos) {
+
+        private static final Lista VACIA = new Lista(new int[0], new int[0]);
+
+        /**
+         * Obtiene una copia de la lista sin unos libros y con otros añadidos (o con su nuevo peso, si ya estaban),
+         * en una sola pasada, o nulo si se queda vacía.
+         *
+         * @param quitados IDs de los libros a quitar, ordenados.
+         * @param anadidos IDs de los libros a añadir, ordenados. Si un libro también está en {@code quitados},
+         *                 se queda con el peso nuevo.
+         * @param pesosAnadidos El peso de la palabra en cada libro añadido.
+         */
+        private Lista fusionar(int[] quitados, int[] anadidos, int[] pesosAnadidos) {
+            int[] nuevosIds = new int[ids.length + anadidos.length];
+            int[] nuevosPesos = new int[nuevosIds.length];
+            int i = 0;
+            int j = 0;
+            int q = 0;
+            int n = 0;
+            while (i < ids.length || j < anadidos.length) {
+                if (j == anadidos.length || (i < ids.length && ids[i] < anadidos[j])) {
+                    while (q < quitados.length && quitados[q] < ids[i]) {
+                        q++;
+                    }
+                    if (q == quitados.length || quitados[q] != ids[i]) {
+                        nuevosIds[n] = ids[i];
+                        nuevosPesos[n++] = pesos[i];
+                    }
+                    i++;
+                } else {
+                    if (i < ids.length && ids[i] == anadidos[j]) {
+                        i++;
+                    }
+                    nuevosIds[n] = anadidos[j];
+                    nuevosPesos[n++] = pesosAnadidos[j++];
+                }
+            }
+            return n == 0 ? null : new Lista(Arrays.copyOf(nuevosIds, n), Arrays.copyOf(nuevosPesos, n));
+        }
+
+        /**
+         * Une dos listas; si un libro está en las dos, se queda con el mayor peso.
+         */
+        private Lista unir(Lista otra) {
+            int[] nuevosIds = new int[ids.length + otra.ids.length];
+            int[] nuevosPesos = new int[nuevosIds.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < ids.length || j < otra.ids.length) {
+                if (j == otra.ids.length || (i < ids.length && ids[i] < otra.ids[j])) {
+                    nuevosIds[n] = ids[i];
+                    nuevosPesos[n++] = pesos[i++];
+                } else if (i == ids.length || otra.ids[j] < ids[i]) {
+                    nuevosIds[n] = otra.ids[j];
+                    nuevosPesos[n++] = otra.pesos[j++];
+                } else {
+                    nuevosIds[n] = ids[i];
+                    nuevosPesos[n++] = Math.max(pesos[i++], otra.pesos[j++]);
+                }
+            }
+            return new Lista(Arrays.copyOf(nuevosIds, n), Arrays.copyOf(nuevosPesos, n));
+        }
+    }
+
+    /**
+     * Constructor para inyección de dependencias. Construye el índice con todos los libros de la base de datos,
+     * recorriéndolos por ID en bloques para no cargarlos todos a la vez. Como llegan ordenados por ID,
+     * las listas se construyen añadiendo al final, sin copiarlas en cada libro.
+     *
+     * @param libroRepository El repositorio de libros.
+     * @since 1.1
+     */
+    @Autowired
+    public IndiceLibros(LibroRepository libroRepository) {
+        Map<String, int[][]> acumuladas = new HashMap<>();
+        Map<String, Integer> tamanos = new HashMap<>();
+        int ultimo = 0;
+        List<Object[]> bloque;
+        do {
+            bloque = libroRepository.obtenerTextosDesde(ultimo, Limit.of(LIBROS_POR_BLOQUE));
+            for (Object[] fila : bloque) {
+                ultimo = (Integer) fila[0];
+                Documento documento = documento((String) fila[1], (String) fila[2]);
+                documentos.put(ultimo, documento);
+                for (Map.Entry<String, Integer> entrada : documento.pesos().entrySet()) {
+                    int[][] lista = acumuladas.computeIfAbsent(entrada.getKey(), p -> new int[][] {new int[4], new int[4]});
+                    int tamano = tamanos.merge(entrada.getKey(), 1, Integer::sum) - 1;
+                    if (tamano == lista[0].length) {
+                        lista[0] = Arrays.copyOf(lista[0], tamano * 2);
+                        lista[1] = Arrays.copyOf(lista[1], tamano * 2);
+                    }
+                    lista[0][tamano] = ultimo;
+                    lista[1][tamano] = entrada.getValue();
+                }
+            }
+        } while (bloque.size() == LIBROS_POR_BLOQUE);
+        acumuladas.forEach((palabra, lista) -> {
+            int tamano = tamanos.get(palabra);
+            palabras.put(palabra, new Lista(Arrays.copyOf(lista[0], tamano), Arrays.copyOf(lista[1], tamano)));
+        });
+    }
+
+    /**
+     * Registra un libro creado. Si hay una transacción en curso, el índice se actualiza al confirmarla.
+     *
+     * @param libro El libro creado.
+     * @since 1.1
+     */
+    public void libroCreado(Libro libro) {
+        libroActualizado(libro);
+    }
+
+    /**
+     * Registra un libro actualizado, sustituyendo sus palabras anteriores.
+     * Si hay una transacción en curso, el índice se actualiza al confirmarla.
+     *
+     * @param libro El libro después del cambio.
+     * @since 1.1
+     */
+    public void libroActualizado(Libro libro) {
+        int id = libro.getId();
+        String titulo = libro.getTitulo();
+        String genero = libro.getGenero();
+        Transacciones.alConfirmarEnLote(this, HashMap::new,
+                cambios -> cambios.put(id, documento(titulo, genero)), this::aplicar);
+    }
+
+    /**
+     * Registra un libro eliminado. Si hay una transacción en curso, el índice se actualiza al confirmarla.
+     *
+     * @param id El ID del libro eliminado.
+     * @since 1.1
+     */
+    public void libroEliminado(Integer id) {
+        Transacciones.alConfirmarEnLote(this, HashMap::new, cambios -> cambios.put(id, null), this::aplicar);
+    }
+
+    /**
+     * Busca los libros cuyo título o género contienen todas las palabras de la consulta.
+     * La relevancia de cada libro es la suma, para cada palabra, de su peso en el libro por lo poco frecuente
+     * que es la palabra en el catálogo; a igual relevancia, se ordena por ID.
+     *
+     * @param consulta El texto a buscar, sin importar mayúsculas ni tildes.
+     * @param offset Número de resultados que se saltan.
+     * @param limite Número máximo de resultados a devolver.
+     * @return Los libros encontrados, del más al menos relevante.
+     * @throws IllegalArgumentException Si el offset es negativo o {@code offset + limite} supera {@link #MAX_RESULTADOS}.
+     * @since 1.1
+     */
+    public List<ResultadoBusquedaLibro> buscar(String consulta, int offset, int limite) {
+        // Los resultados hasta offset + limite se guardan en arrays de ese tamaño, así que se limita antes de crearlos.
+        if (offset < 0 || limite > MAX_RESULTADOS - offset) {
+            throw new IllegalArgumentException("Offset " + offset + " y límite " + limite
+                    + " no válidos: la búsqueda no puede pasar del resultado " + MAX_RESULTADOS);
+        }
+        List<String> terminos = new ArrayList<>(new LinkedHashSet<>(tokenizar(consulta)));
+        if (terminos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        // Lista de cada término; la última palabra incluye también las palabras que empiezan por ella.
+        Lista[] listas = new Lista[terminos.size()];
+        for (int i = 0; i < listas.length; i++) {
+            listas[i] = i == listas.length - 1 ? buscarPrefijo(terminos.get(i)) : palabras.get(terminos.get(i));
+            if (listas[i] == null) {
+                return List.of();
+            }
+        }
+        // Se recorre la lista más corta y se busca cada libro en las demás, que avanzan a la par porque
+        // todas están ordenadas por ID.
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.ids().length, b.ids().length));
+        double total = documentos.size();
+        double[] idf = new double[listas.length];
+        for (int i = 0; i < listas.length; i++) {
+            idf[i] = Math.log(1 + total / listas[i].ids().length);
+        }
+        int[] posiciones = new int[listas.length];
+
+        // Montículo de mínimos con los mejores offset + limite resultados; el peor, en la raíz. Como los libros
+        // se recorren por ID creciente, uno nuevo con la misma puntuación que el peor nunca lo sustituye.
+        int capacidad = offset + limite;
+        double[] puntuaciones = new double[capacidad];
+        int[] ids = new int[capacidad];
+        int tamano = 0;
+
+        Lista guia = listas[0];
+        siguiente:
+        for (int k = 0; k < guia.ids().length; k++) {
+            int id = guia.ids()[k];
+            double puntuacion = guia.pesos()[k] * idf[0];
+            for (int i = 1; i < listas.length; i++) {
+                int[] otros = listas[i].ids();
+                int posicion = buscarDesde(otros, posiciones[i], id);
+                if (posicion < 0) {
+                    posiciones[i] = -posicion - 1;
+                    if (posiciones[i] == otros.length) {
+                        break siguiente;
+                    }
+                    continue siguiente;
+                }
+                posiciones[i] = posicion + 1;
+                puntuacion += listas[i].pesos()[posicion] * idf[i];
+            }
+            if (tamano < capacidad) {
+                // Se sube el nuevo elemento hasta su sitio.
+                int hijo = tamano++;
+                while (hijo > 0 && peor(puntuacion, id, puntuaciones[(hijo - 1) / 2], ids[(hijo - 1) / 2])) {
+                    puntuaciones[hijo] = puntuaciones[(hijo - 1) / 2];
+                    ids[hijo] = ids[(hijo - 1) / 2];
+                    hijo = (hijo - 1) / 2;
+                }
+                puntuaciones[hijo] = puntuacion;
+                ids[hijo] = id;
+            } else if (puntuacion > puntuaciones[0]) {
+                // Sustituye al peor y se baja hasta su sitio.
+                int padre = 0;
+                while (true) {
+                    int hijo = 2 * padre + 1;
+                    if (hijo >= tamano) {
+                        break;
+                    }
+                    if (hijo + 1 < tamano && peor(puntuaciones[hijo + 1], ids[hijo + 1], puntuaciones[hijo], ids[hijo])) {
+                        hijo++;
+                    }
+                    if (!peor(puntuaciones[hijo], ids[hijo], puntuacion, id)) {
+                        break;
+                    }
+                    puntuaciones[padre] = puntuaciones[hijo];
+                    ids[padre] = ids[hijo];
+                    padre = hijo;
+                }
+                puntuaciones[padre] = puntuacion;
+                ids[padre] = id;
+            }
+        }
+
+        List<ResultadoBusquedaLibro> resultados = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Documento documento = documentos.get(ids[i]);
+            if (documento != null) {
+                resultados.add(new ResultadoBusquedaLibro(ids[i], documento.titulo(), documento.genero(), puntuaciones[i]));
+            }
+        }
+        resultados.sort((a, b) -> peor(a.getPuntuacion(), a.getLibroId(), b.getPuntuacion(), b.getLibroId()) ? 1 : -1);
+        return offset >= resultados.size() ? List.of() : resultados.subList(offset, resultados.size());
+    }
+
+    /**
+     * Busca un ID en una lista ordenada a partir de una posición, con saltos que se duplican hasta pasarlo
+     * y una búsqueda binaria en el último salto. Como las posiciones avanzan a la par que la lista guía,
+     * el coste depende de la distancia recorrida y no del tamaño de la lista.
+     *
+     * @param ids La lista ordenada.
+     * @param desde Posición desde la que se busca.
+     * @param id El ID a buscar.
+     * @return La posición del ID, o {@code -(punto de inserción) - 1} si no está, como {@link Arrays#binarySearch}.
+     */
+    private static int buscarDesde(int[] ids, int desde, int id) {
+        int salto = 1;
+        int hasta = desde;
+        while (hasta < ids.length && ids[hasta] < id) {
+            desde = hasta + 1;
+            hasta += salto;
+            salto <<= 1;
+        }
+        return Arrays.binarySearch(ids, desde, Math.min(hasta + 1, ids.length), id);
+    }
+
+    /**
+     * Indica si un resultado es peor que otro: menos relevante o, con la misma relevancia, con mayor ID.
+     */
+    private static boolean peor(double puntuacion, int id, double otraPuntuacion, int otroId) {
+        return puntuacion < otraPuntuacion || (puntuacion == otraPuntuacion && id > otroId);
+    }
+
+    /**
+     * Obtiene la lista de los libros que contienen la palabra o alguna palabra que empieza por ella,
+     * con el mayor peso de esas palabras en cada libro.
+     *
+     * @param prefijo El prefijo, ya normalizado.
+     * @return La lista de libros, o nulo si ninguna palabra empieza por el prefijo.
+     * @since 1.1
+     */
+    private Lista buscarPrefijo(String prefijo) {
+        Lista union = palabras.get(prefijo);
+        int expansiones = 0;
+        for (Lista lista : palabras.subMap(prefijo, false, prefijo + Character.MAX_VALUE, false).values()) {
+            if (++expansiones > MAX_EXPANSIONES_PREFIJO) {
+                break;
+            }
+            union = union == null ? lista : union.unir(lista);
+        }
+        return union;
+    }
+
+    /**
+     * Aplica al índice los cambios de una transacción: cada lista de palabras afectada se sustituye una sola vez,
+     * aunque la cambien muchos libros de la transacción. Los cambios de distintas transacciones se aplican
+     * de uno en uno, para que no se pierda ninguno al sustituir la misma lista.
+     *
+     * @param cambios El estado final de cada libro cambiado en la transacción, o nulo si se ha eliminado.
+     * @since 1.1
+     */
+    private synchronized void aplicar(Map<Integer, Documento> cambios) {
+        Map<String, List<Integer>> quitados = new HashMap<>();
+        Map<String, Map<Integer, Integer>> anadidos = new HashMap<>();
+        cambios.forEach((id, documento) -> {
+            Documento anterior = documento == null ? documentos.remove(id) : documentos.put(id, documento);
+            if (anterior != null) {
+                anterior.pesos().keySet().forEach(palabra ->
+                        quitados.computeIfAbsent(palabra, p -> new ArrayList<>()).add(id));
+            }
+            if (documento != null) {
+                documento.pesos().forEach((palabra, peso) ->
+                        anadidos.computeIfAbsent(palabra, p -> new HashMap<>()).put(id, peso));
+            }
+        });
+        Set<String> afectadas = new HashSet<>(quitados.keySet());
+        afectadas.addAll(anadidos.keySet());
+        for (String palabra : afectadas) {
+            int[] sinLibros = quitados.getOrDefault(palabra, List.of()).stream()
+                    .mapToInt(Integer::intValue).sorted().toArray();
+            Map<Integer, Integer> conLibros = anadidos.getOrDefault(palabra, Map.of());
+            int[] ids = conLibros.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] pesos = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                pesos[i] = conLibros.get(ids[i]);
+            }
+            palabras.compute(palabra, (p, lista) ->
+                    (lista == null ? Lista.VACIA : lista).fusionar(sinLibros, ids, pesos));
+        }
+    }
+
+    /**
+     * Calcula las palabras de un libro y su peso.
+     *
+     * @param titulo El título del libro.
+     * @param genero El género del libro.
+     * @return El libro, listo para indexarlo.
+     * @since 1.1
+     */
+    private static Documento documento(String titulo, String genero) {
+        Map<String, Integer> pesos = new HashMap<>();
+        for (String palabra : tokenizar(titulo)) {
+            pesos.merge(palabra, PESO_TITULO, Integer::sum);
+        }
+        for (String palabra : tokenizar(genero)) {
+            pesos.merge(palabra, PESO_GENERO, Integer::sum);
+        }
+        return new Documento(titulo, genero, pesos);
+    }
+
+    /**
+     * Divide un texto en palabras normalizadas (sin mayúsculas ni tildes), separando por cualquier carácter
+     * que no sea una letra o un dígito.
+     *
+     * @param texto El texto, que puede ser nulo.
+     * @return Las palabras del texto, en orden.
+     * @since 1.1
+     */
+    static List<String> tokenizar(String texto) {
+        List<String> resultado = new ArrayList<>();
+        if (texto == null) {
+            return resultado;
+        }
+        String normalizado = Textos.normalizar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean letra = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (letra && inicio < 0) {
+                inicio = i;
+            } else if (!letra && inicio >= 0) {
+                resultado.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,169 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dto.Usuario;
+import com.lvg.grandao_biblioteca.util.Textos;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índices secundarios en memoria sobre los usuarios.
+ * Mantiene un índice hash por correo, un índice por teléfono normalizado (solo dígitos)
+ * y un árbol de prefijos (trie) por nombre de usuario, sin distinguir mayúsculas ni tildes.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class IndiceUsuarios {
+
+    private final Map<String, Usuario> porCorreo = new ConcurrentHashMap<>();
+    private final Map<String, List<Usuario>> porTelefono = new ConcurrentHashMap<>();
+
+    // El trie no es concurrente por sí mismo, así que se protege con un cerrojo de lectura/escritura.
+    private final Nodo raiz = new Nodo();
+    private final ReadWriteLock cerrojoTrie = new ReentrantReadWriteLock();
+
+    /**
+     * Nodo del árbol de prefijos.
+     * Cada nodo guarda los usuarios cuyo nombre normalizado termina exactamente en él.
+     */
+    private static final class Nodo {
+        private final TreeMap<Character, Nodo> hijos = new TreeMap<>();
+        private final List<Usuario> usuarios = new ArrayList<>();
+    }
+
+    /**
+     * Agrega un usuario a todos los índices.
+     *
+     * @param usuario El usuario a indexar.
+     * @since 1.1
+     */
+    public void agregar(Usuario usuario) {
+        if (usuario.getCorreo() != null) {
+            porCorreo.put(normalizarCorreo(usuario.getCorreo()), usuario);
+        }
+        if (usuario.getTelefono() != null) {
+            porTelefono.computeIfAbsent(normalizarTelefono(usuario.getTelefono()), t -> new CopyOnWriteArrayList<>())
+                    .add(usuario);
+        }
+        if (usuario.getNombreUsuario() != null) {
+            String nombre = Textos.normalizar(usuario.getNombreUsuario());
+            cerrojoTrie.writeLock().lock();
+            try {
+                Nodo nodo = raiz;
+                for (int i = 0; i < nombre.length(); i++) {
+                    nodo = nodo.hijos.computeIfAbsent(nombre.charAt(i), c -> new Nodo());
+                }
+                nodo.usuarios.add(usuario);
+            } finally {
+                cerrojoTrie.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Busca un usuario por su correo, sin distinguir mayúsculas.
+     *
+     * @param correo El correo a buscar.
+     * @return Un Optional con el usuario encontrado, o vacío si no existe.
+     * @since 1.1
+     */
+    public Optional<Usuario> buscarPorCorreo(String correo) {
+        return Optional.ofNullable(porCorreo.get(normalizarCorreo(correo)));
+    }
+
+    /**
+     * Busca los usuarios con un teléfono, ignorando espacios, guiones y cualquier otro carácter que no sea un dígito.
+     *
+     * @param telefono El teléfono a buscar.
+     * @return La lista de usuarios con ese teléfono, vacía si no hay ninguno.
+     * @since 1.1
+     */
+    public List<Usuario> buscarPorTelefono(String telefono) {
+        List<Usuario> usuarios = porTelefono.get(normalizarTelefono(telefono));
+        return usuarios == null ? List.of() : List.copyOf(usuarios);
+    }
+
+    /**
+     * Busca los usuarios cuyo nombre empieza por un prefijo, sin distinguir mayúsculas ni tildes.
+     * El coste de llegar al nodo del prefijo depende solo de la longitud del prefijo.
+     *
+     * @param prefijo El prefijo a buscar.
+     * @param limite Número máximo de usuarios a devolver.
+     * @return La lista de usuarios encontrados, ordenados por nombre.
+     * @since 1.1
+     */
+    public List<Usuario> buscarPorPrefijo(String prefijo, int limite) {
+        String normalizado = Textos.normalizar(prefijo);
+        List<Usuario> resultado = new ArrayList<>();
+        cerrojoTrie.readLock().lock();
+        try {
+            Nodo nodo = raiz;
+            for (int i = 0; i < normalizado.length() && nodo != null; i++) {
+                nodo = nodo.hijos.get(normalizado.charAt(i));
+            }
+            if (nodo == null) {
+                return resultado;
+            }
+
+            // Recorrido en profundidad del subárbol, visitando los hijos en orden alfabético.
+            Deque<Nodo> pendientes = new ArrayDeque<>();
+            pendientes.push(nodo);
+            while (!pendientes.isEmpty() && resultado.size() < limite) {
+                Nodo actual = pendientes.pop();
+                for (Usuario usuario : actual.usuarios) {
+                    if (resultado.size() == limite) {
+                        break;
+                    }
+                    resultado.add(usuario);
+                }
+                for (Nodo hijo : actual.hijos.descendingMap().values()) {
+                    pendientes.push(hijo);
+                }
+            }
+        } finally {
+            cerrojoTrie.readLock().unlock();
+        }
+        return resultado;
+    }
+
+
+    /**
+     * Normaliza un correo para buscarlo: minúsculas y sin espacios al principio ni al final.
+     *
+     * @param correo El correo a normalizar.
+     * @return El correo normalizado.
+     * @since 1.1
+     */
+    private static String normalizarCorreo(String correo) {
+        return correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normaliza un teléfono para buscarlo, dejando solo sus dígitos.
+     *
+     * @param telefono El teléfono a normalizar.
+     * @return Los dígitos del teléfono.
+     * @since 1.1
+     */
+    private static String normalizarTelefono(String telefono) {
+        StringBuilder digitos = new StringBuilder(telefono.length());
+        for (int i = 0; i < telefono.length(); i++) {
+            char c = telefono.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+}
@@ -1,47 +1,167 @@
 package com.lvg.grandao_biblioteca.service;
 
 import com.lvg.grandao_biblioteca.modelo.dao.LibroRepository;
+import com.lvg.grandao_biblioteca.modelo.dao.MetricasAlmacen;
+import com.lvg.grandao_biblioteca.modelo.dto.CambiosLibro;
 import com.lvg.grandao_biblioteca.modelo.dto.Libro;
-import jakarta.transaction.Transactional;
+import com.lvg.grandao_biblioteca.modelo.dto.PaginaLibros;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoBusquedaLibro;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoValidacionIsbn;
+import com.lvg.grandao_biblioteca.modelo.dto.SeleccionLibros;
+import com.lvg.grandao_biblioteca.util.Isbn;
+import com.lvg.grandao_biblioteca.util.Transacciones;
+import jakarta.persistence.Cache;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Servicio encargado de gestionar las operaciones relacionadas con los libros.
  * Incluye métodos para crear, obtener, actualizar y eliminar libros.
+ * Las consultas son transacciones de solo lectura, que van a la réplica de lectura si está configurada
+ * (ver {@code ConfiguracionReplica}); el resto de operaciones van a la base de datos primaria.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @Service
 @Transactional // Esta anotación se pone para indicar que deben realizarse transacciones para las operaciones indicadas.
 public class LibroService {
 
+    // Cada cuántos libros exportados se vacía el contexto de persistencia, para que no crezca con la exportación.
+    private static final int LIBROS_POR_LIMPIEZA = 1000;
+
+    // Libros por lote JDBC en las altas múltiples; debe coincidir con hibernate.jdbc.batch_size.
+    private static final int LIBROS_POR_LOTE = 50;
+
+    // Las escrituras que no pasan por un método del repositorio se miden aquí, con los mismos medidores que
+    // MetricasRepositorios usa para los repositorios de JPA.
+    private static final MetricasAlmacen METRICAS = new MetricasAlmacen("mariadb");
+
+    // Préstamo y devolución de un ejemplar: una sola UPDATE condicional, que no puede dejar la cantidad en negativo.
+    // Visibles en el paquete para probarlas con accesos concurrentes.
+    static final String SQL_PRESTAR =
+            "UPDATE Libros SET cantidad = cantidad - 1, version = version + 1 WHERE libro_id = ? AND cantidad > 0";
+    static final String SQL_DEVOLVER =
+            "UPDATE Libros SET cantidad = cantidad + 1, version = version + 1 WHERE libro_id = ?";
+
+    /**
+     * Resultado de prestar o devolver un ejemplar.
+     *
+     * @since 1.1
+     */
+    public enum ResultadoStock {
+        /** Se ha cambiado la cantidad. */
+        HECHO,
+        /** No quedan ejemplares para prestar. */
+        SIN_COPIAS,
+        /** El libro no existe. */
+        NO_ENCONTRADO
+    }
+
     private final LibroRepository libroRepository;
+    private final FacetasCategorias facetasCategorias;
+    private final IndiceLibros indiceLibros;
+    private final FiltroIsbn filtroIsbn;
+    private final EntityManager entityManager;
 
     /**
      * Constructor para inyección de dependencias.
      *
      * @param libroRepository El repositorio de libros para interactuar con los datos.
+     * @param facetasCategorias Los recuentos de libros por género, que se actualizan con cada cambio.
+     * @param indiceLibros El índice de búsqueda de texto, que se actualiza con cada cambio.
+     * @param filtroIsbn El filtro de ISBN conocidos, que se actualiza con cada cambio.
+     * @param entityManager El gestor de entidades, para vaciar el contexto de persistencia durante las exportaciones.
      * @since 1.0
      */
     @Autowired
-    public LibroService(LibroRepository libroRepository) {
+    public LibroService(LibroRepository libroRepository, FacetasCategorias facetasCategorias, IndiceLibros indiceLibros,
+                        FiltroIsbn filtroIsbn, EntityManager entityManager) {
         this.libroRepository = libroRepository;
+        this.facetasCategorias = facetasCategorias;
+        this.indiceLibros = indiceLibros;
+        this.filtroIsbn = filtroIsbn;
+        this.entityManager = entityManager;
     }
 
     /**
      * Crea un nuevo libro en el sistema.
      *
-     * @param libro El objeto libro que se desea crear.
+     * @param libro El objeto libro que se desea crear. Si trae ID, se ignora.
      * @return El libro creado, incluyendo el ID asignado.
+     * @throws IllegalStateException Si ya existe un libro con el mismo ISBN.
      * @since 1.0
      */
     public Libro crearLibro(Libro libro) {
-        return libroRepository.save(libro);
+        comprobarIsbnLibre(libro.getIsbn(), null);
+        filtroIsbn.libroCreado(libro.getIsbn());
+        // Con ID, save fusionaría el libro con el que ya tiene ese ID en lugar de insertar uno nuevo.
+        libro.setId(null);
+        Libro creado = libroRepository.save(libro);
+        facetasCategorias.libroCreado(creado);
+        indiceLibros.libroCreado(creado);
+        return creado;
+    }
+
+    /**
+     * Crea varios libros en una sola transacción.
+     * Como los IDs se reservan por bloques, Hibernate envía las inserciones en lotes JDBC
+     * (ver {@code hibernate.jdbc.batch_size}); el contexto de persistencia se vacía tras cada lote.
+     *
+     * @param libros Los libros que se desean crear. Si traen ID, se ignora.
+     * @return Los libros creados, con los IDs asignados, en el mismo orden.
+     * @throws IllegalStateException Si dos libros tienen el mismo ISBN o alguno ya existe.
+     * @since 1.1
+     */
+    public List<Libro> crearLibros(List<Libro> libros) {
+        // Se comprueban todos los ISBN antes de insertar, para no dejar a medias el primer lote JDBC.
+        Set<String> isbns = new HashSet<>();
+        for (Libro libro : libros) {
+            if (!isbns.add(libro.getIsbn())) {
+                throw new IllegalStateException("ISBN repetido en el lote: " + libro.getIsbn());
+            }
+            comprobarIsbnLibre(libro.getIsbn(), null);
+        }
+        return METRICAS.medir("saveAll", () -> {
+            List<Libro> creados = new ArrayList<>(libros.size());
+            for (Libro libro : libros) {
+                filtroIsbn.libroCreado(libro.getIsbn());
+                // Sin ID, el libro se inserta directamente en lugar de buscarse antes para fusionarlo.
+                libro.setId(null);
+                entityManager.persist(libro);
+                facetasCategorias.libroCreado(libro);
+                indiceLibros.libroCreado(libro);
+                creados.add(libro);
+                if (creados.size() % LIBROS_POR_LOTE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return creados;
+        });
     }
 
     /**
@@ -50,10 +170,71 @@ public class LibroService {
      * @return Una lista con todos los libros.
      * @since 1.0
      */
+    @Transactional(readOnly = true)
     public List<Libro> obtenerLibros() {
         return libroRepository.findAll();
     }
 
+    /**
+     * Recorre todos los libros, ordenados por ID, pasándolos uno a uno al consumidor a medida que llegan de la
+     * base de datos. La memoria usada no depende del número de libros: las filas se leen por bloques y el contexto
+     * de persistencia se vacía cada {@value #LIBROS_POR_LIMPIEZA} libros.
+     *
+     * @param consumidor Acción que recibe cada libro.
+     * @return El número de libros recorridos.
+     * @since 1.1
+     */
+    @Transactional(readOnly = true)
+    public long exportarLibros(Consumer<Libro> consumidor) {
+        long total = 0;
+        try (Stream<Libro> libros = libroRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Libro> iterador = libros.iterator();
+            while (iterador.hasNext()) {
+                consumidor.accept(iterador.next());
+                if (++total % LIBROS_POR_LIMPIEZA == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene una página de libros ordenados por ID, empezando después del cursor indicado.
+     * Se pide un libro más de los necesarios para saber si hay una página siguiente sin otra consulta.
+     *
+     * @param cursor Cursor devuelto en la página anterior, o el ID del último libro ya leído; nulo para la primera página.
+     * @param limite Número máximo de libros de la página.
+     * @return La página de libros, con el cursor de la siguiente o nulo si es la última.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     * @since 1.1
+     */
+    @Transactional(readOnly = true)
+    public PaginaLibros obtenerPaginaLibros(String cursor, int limite) {
+        int despuesDe = cursor == null || cursor.isBlank() ? 0 : decodificarCursor(cursor);
+        List<Libro> libros = libroRepository.findByIdGreaterThanOrderByIdAsc(despuesDe, Limit.of(limite + 1));
+        if (libros.size() <= limite) {
+            return new PaginaLibros(libros, null);
+        }
+        List<Libro> pagina = new ArrayList<>(libros.subList(0, limite));
+        return new PaginaLibros(pagina, codificarCursor(pagina.get(limite - 1).getId()));
+    }
+
+    /**
+     * Busca libros por las palabras de su título y su género, usando el índice en memoria.
+     *
+     * @param consulta El texto a buscar, sin importar mayúsculas ni tildes.
+     * @param offset Número de resultados que se saltan.
+     * @param limite Número máximo de resultados a devolver.
+     * @return Los libros encontrados, del más al menos relevante.
+     * @throws IllegalArgumentException Si el offset es negativo o {@code offset + limite} supera
+     *                                  {@link IndiceLibros#MAX_RESULTADOS}.
+     * @since 1.1
+     */
+    public List<ResultadoBusquedaLibro> buscarLibros(String consulta, int offset, int limite) {
+        return indiceLibros.buscar(consulta, offset, limite);
+    }
+
     /**
      * Obtiene un libro por su ID.
      *
@@ -61,10 +242,48 @@ public class LibroService {
      * @return Un objeto Optional que puede contener el libro si se encuentra, o estar vacío si no existe.
      * @since 1.0
      */
+    @Transactional(readOnly = true)
     public Optional<Libro> obtenerLibroPorId(Integer id) {
         return libroRepository.findLibroById(id);
     }
 
+    /**
+     * Obtiene un libro por su ISBN. Si el filtro de ISBN indica que no existe, no se consulta la base de datos.
+     *
+     * @param isbn El ISBN-10 o ISBN-13 del libro, con o sin guiones.
+     * @return Un objeto Optional que puede contener el libro si se encuentra, o estar vacío si no existe.
+     * @throws IllegalArgumentException Si el ISBN no es válido.
+     * @since 1.1
+     */
+    @Transactional(readOnly = true)
+    public Optional<Libro> obtenerLibroPorIsbn(String isbn) {
+        String canonico = Isbn.canonizar(isbn);
+        if (canonico == null) {
+            throw new IllegalArgumentException("ISBN no válido: " + isbn);
+        }
+        if (!filtroIsbn.podriaContener(canonico)) {
+            return Optional.empty();
+        }
+        return libroRepository.findByIsbn(canonico);
+    }
+
+    /**
+     * Valida varios ISBN y obtiene su forma canónica. No consulta la base de datos, así que no abre una transacción.
+     *
+     * @param isbns Los ISBN a validar, con o sin guiones.
+     * @return El resultado de cada ISBN, en el mismo orden.
+     * @since 1.1
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ResultadoValidacionIsbn> validarIsbns(List<String> isbns) {
+        List<ResultadoValidacionIsbn> resultados = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            String canonico = Isbn.canonizar(isbn);
+            resultados.add(new ResultadoValidacionIsbn(isbn, canonico != null, canonico));
+        }
+        return resultados;
+    }
+
     /**
      * Actualiza la información de un libro existente.
      *
@@ -72,17 +291,117 @@ public class LibroService {
      * @param libro El objeto libro con la nueva información.
      * @return El libro actualizado, o lanza una excepción si el libro no existe.
      * @throws RuntimeException Si el libro con el ID proporcionado no se encuentra.
+     * @throws IllegalStateException Si el nuevo ISBN ya lo tiene otro libro.
+     * @throws OptimisticLockingFailureException Si se indica una versión y el libro ha cambiado desde entonces.
      * @since 1.0
      */
     public Libro actualizarLibro(Integer id, Libro libro) {
-        if (libroRepository.existsById(id)) {
+        Optional<Libro> existente = libroRepository.findById(id);
+        if (existente.isPresent()) {
+            // Se guardan los valores anteriores antes de guardar, porque la entidad cargada se actualiza al hacerlo.
+            String generoAnterior = existente.get().getGenero();
+            Integer cantidadAnterior = existente.get().getCantidad();
+            String isbnAnterior = existente.get().getIsbn();
+            if (libro.getIsbn() != null && !libro.getIsbn().equals(isbnAnterior)) {
+                comprobarIsbnLibre(libro.getIsbn(), id);
+                filtroIsbn.libroActualizado(isbnAnterior, libro.getIsbn());
+            }
             libro.setId(id);
-            return libroRepository.save(libro);
+            if (libro.getVersion() == null) {
+                // Sin versión no se comprueba si otro cliente ha cambiado el libro, como en la versión 1.0.
+                libro.setVersion(existente.get().getVersion());
+            }
+            Libro actualizado = libroRepository.save(libro);
+            facetasCategorias.libroActualizado(generoAnterior, cantidadAnterior, actualizado);
+            indiceLibros.libroActualizado(actualizado);
+            return actualizado;
         } else {
             throw new RuntimeException("Libro no encontrado con id: " + id);
         }
     }
 
+    /**
+     * Modifica solo los campos indicados de un libro, si no ha cambiado desde la versión indicada.
+     * <p>
+     * El libro se lee de la caché de segundo nivel si está en ella, así que normalmente la única consulta es la UPDATE
+     * que se envía al confirmar la transacción, con las columnas que cambian y la comprobación de la versión. Se lee
+     * antes de modificarlo porque los recuentos por género, el índice de búsqueda y el filtro de ISBN necesitan los
+     * valores anteriores. Si otro cliente lo modifica entre la lectura y la UPDATE, la UPDATE no afecta a ninguna fila
+     * y la transacción falla con {@link OptimisticLockingFailureException}.
+     *
+     * @param id El identificador del libro a modificar.
+     * @param cambios Los campos a cambiar (los nulos no cambian) y la versión del libro que se leyó.
+     * @return El libro modificado, o vacío si no existe.
+     * @throws IllegalArgumentException Si el nuevo ISBN no es válido.
+     * @throws IllegalStateException Si el nuevo ISBN ya lo tiene otro libro.
+     * @throws OptimisticLockingFailureException Si el libro ha cambiado desde la versión indicada.
+     * @since 1.1
+     */
+    public Optional<Libro> modificarLibro(Integer id, CambiosLibro cambios) {
+        Optional<Libro> existente = libroRepository.findById(id);
+        if (existente.isEmpty()) {
+            return Optional.empty();
+        }
+        Libro libro = existente.get();
+        if (!libro.getVersion().equals(cambios.getVersion())) {
+            throw new OptimisticLockingFailureException("El libro " + id + " ha cambiado: la versión actual es "
+                    + libro.getVersion());
+        }
+        String generoAnterior = libro.getGenero();
+        Integer cantidadAnterior = libro.getCantidad();
+        if (cambios.getIsbn() != null) {
+            // Se comprueba antes de cambiar la entidad, porque la consulta haría que Hibernate enviase ya la UPDATE.
+            String isbn = Isbn.canonizar(cambios.getIsbn());
+            if (isbn == null) {
+                throw new IllegalArgumentException("ISBN no válido: " + cambios.getIsbn());
+            }
+            if (!isbn.equals(libro.getIsbn())) {
+                comprobarIsbnLibre(isbn, id);
+                filtroIsbn.libroActualizado(libro.getIsbn(), isbn);
+                libro.setIsbn(isbn);
+            }
+        }
+        if (cambios.getTitulo() != null) {
+            libro.setTitulo(cambios.getTitulo());
+        }
+        if (cambios.getGenero() != null) {
+            libro.setGenero(cambios.getGenero());
+        }
+        if (cambios.getCantidad() != null) {
+            libro.setCantidad(cambios.getCantidad());
+        }
+        if (cambios.getGenero() != null || cambios.getCantidad() != null) {
+            facetasCategorias.libroActualizado(generoAnterior, cantidadAnterior, libro);
+        }
+        if (cambios.getTitulo() != null || cambios.getGenero() != null) {
+            indiceLibros.libroActualizado(libro);
+        }
+        return Optional.of(libro);
+    }
+
+    /**
+     * Presta un ejemplar de un libro, restando uno a su cantidad si queda alguno.
+     *
+     * @param id El identificador del libro.
+     * @return {@link ResultadoStock#HECHO} si se ha prestado, {@link ResultadoStock#SIN_COPIAS} si no quedan
+     *         ejemplares o {@link ResultadoStock#NO_ENCONTRADO} si el libro no existe.
+     * @since 1.1
+     */
+    public ResultadoStock prestarLibro(Integer id) {
+        return cambiarCantidad(id, SQL_PRESTAR, -1);
+    }
+
+    /**
+     * Devuelve un ejemplar de un libro, sumando uno a su cantidad.
+     *
+     * @param id El identificador del libro.
+     * @return {@link ResultadoStock#HECHO} si se ha devuelto o {@link ResultadoStock#NO_ENCONTRADO} si el libro no existe.
+     * @since 1.1
+     */
+    public ResultadoStock devolverLibro(Integer id) {
+        return cambiarCantidad(id, SQL_DEVOLVER, 1);
+    }
+
     /**
      * Elimina un libro por su ID.
      *
@@ -91,10 +410,178 @@ public class LibroService {
      * @since 1.0
      */
     public boolean eliminarLibro(Integer id) {
-        if (libroRepository.existsById(id)) {
+        Optional<Libro> existente = libroRepository.findById(id);
+        if (existente.isPresent()) {
             libroRepository.deleteLibroById(id);
+            facetasCategorias.libroEliminado(existente.get().getGenero(), existente.get().getCantidad());
+            indiceLibros.libroEliminado(id);
+            if (existente.get().getIsbn() != null) {
+                filtroIsbn.libroEliminado(existente.get().getIsbn());
+            }
             return true;
         }
         return false;
     }
+
+    /**
+     * Elimina todos los libros que cumplen los criterios indicados con una sola sentencia DELETE, sin cargarlos.
+     * <p>
+     * Se usa {@code DELETE ... RETURNING} de MariaDB, que devuelve las filas eliminadas en la misma sentencia: así se
+     * conocen los IDs realmente eliminados, aunque otro cliente elimine alguno a la vez, y el género, la cantidad y
+     * el ISBN de cada uno para actualizar los recuentos, el índice de búsqueda y el filtro de ISBN. Como Hibernate no
+     * interpreta la sentencia, al confirmar la transacción se desalojan de la caché de segundo nivel los libros
+     * eliminados y las consultas de libros guardadas.
+     *
+     * @param seleccion Los criterios de los libros a eliminar; debe tener al menos uno.
+     * @return Los IDs de los libros eliminados, ordenados.
+     * @since 1.1
+     */
+    @SuppressWarnings("unchecked")
+    public List<Integer> eliminarLibros(SeleccionLibros seleccion) {
+        StringBuilder sql = new StringBuilder("DELETE FROM Libros WHERE 1 = 1");
+        if (seleccion.getIds() != null) {
+            if (seleccion.getIds().isEmpty()) {
+                return List.of();
+            }
+            sql.append(" AND libro_id IN (:ids)");
+        }
+        if (seleccion.getGenero() != null) {
+            sql.append(" AND genero = :genero");
+        }
+        if (seleccion.getCantidad() != null) {
+            sql.append(" AND cantidad = :cantidad");
+        }
+        sql.append(" RETURNING libro_id, genero, cantidad, isbn");
+
+        Query consulta = entityManager.createNativeQuery(sql.toString());
+        if (seleccion.getIds() != null) {
+            consulta.setParameter("ids", seleccion.getIds());
+        }
+        if (seleccion.getGenero() != null) {
+            consulta.setParameter("genero", seleccion.getGenero());
+        }
+        if (seleccion.getCantidad() != null) {
+            consulta.setParameter("cantidad", seleccion.getCantidad());
+        }
+        List<Object[]> filas = METRICAS.medir("deleteLibros", () -> consulta.getResultList());
+
+        List<Integer> eliminados = new ArrayList<>(filas.size());
+        for (Object[] fila : filas) {
+            Integer id = ((Number) fila[0]).intValue();
+            String genero = (String) fila[1];
+            Integer cantidad = fila[2] == null ? null : ((Number) fila[2]).intValue();
+            String isbn = (String) fila[3];
+            eliminados.add(id);
+            facetasCategorias.libroEliminado(genero, cantidad);
+            indiceLibros.libroEliminado(id);
+            if (isbn != null) {
+                filtroIsbn.libroEliminado(isbn);
+            }
+        }
+        eliminados.sort(null);
+
+        if (!eliminados.isEmpty()) {
+            Cache cache = entityManager.getEntityManagerFactory().getCache();
+            Transacciones.alConfirmar(() -> {
+                for (Integer id : eliminados) {
+                    cache.evict(Libro.class, id);
+                }
+                cache.unwrap(org.hibernate.Cache.class).evictQueryRegion("libros-consultas");
+            });
+        }
+        return eliminados;
+    }
+
+    /**
+     * Cambia la cantidad de un libro con una UPDATE condicional atómica: la base de datos comprueba la condición y
+     * cambia la fila en la misma sentencia, así que los préstamos concurrentes de un mismo libro no pueden prestar
+     * más ejemplares de los que hay, y el número de filas afectadas indica si se ha hecho el cambio.
+     * <p>
+     * El género del libro se lee antes, de la caché de segundo nivel si está en ella, para no alargar el bloqueo
+     * de la fila, que dura desde la UPDATE hasta que se confirma la transacción. La UPDATE se envía directamente por
+     * JDBC: si pasara por Hibernate como una UPDATE masiva, vaciaría la región {@code libros} entera en cada préstamo;
+     * así, al confirmar solo se desaloja de la caché el libro cambiado.
+     *
+     * @param id El identificador del libro.
+     * @param sql La UPDATE, con el ID como único parámetro.
+     * @param diferencia Lo que cambia la cantidad, para los recuentos por género.
+     * @return El resultado del cambio.
+     * @since 1.1
+     */
+    private ResultadoStock cambiarCantidad(Integer id, String sql, int diferencia) {
+        // Se lee de la caché si está, pero no se guarda en ella: si otro préstamo confirma y desaloja el libro
+        // mientras tanto, se volvería a guardar con la cantidad anterior.
+        Libro libro = entityManager.find(Libro.class, id,
+                Map.of("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS));
+        if (libro == null) {
+            return ResultadoStock.NO_ENCONTRADO;
+        }
+        int filas = METRICAS.medir("updateCantidad", () -> entityManager.unwrap(Session.class).doReturningWork(conexion -> {
+            try (PreparedStatement sentencia = conexion.prepareStatement(sql)) {
+                sentencia.setInt(1, id);
+                return sentencia.executeUpdate();
+            }
+        }));
+        if (filas == 0) {
+            // El libro existía al leerlo: al prestar, no quedan ejemplares; al devolver, se ha eliminado justo después.
+            return diferencia < 0 ? ResultadoStock.SIN_COPIAS : ResultadoStock.NO_ENCONTRADO;
+        }
+        facetasCategorias.cantidadCambiada(libro.getGenero(), diferencia);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        Transacciones.alConfirmar(() -> cache.evict(Libro.class, id));
+        return ResultadoStock.HECHO;
+    }
+
+    /**
+     * Comprueba que ningún otro libro tiene el ISBN indicado. Solo se consulta la base de datos si el filtro
+     * de ISBN indica que puede existir, así que los ISBN nuevos se comprueban sin consultas.
+     *
+     * @param isbn El ISBN-13 canónico.
+     * @param id El ID del libro que se modifica, que puede tener ya ese ISBN; nulo si el libro es nuevo.
+     * @throws IllegalStateException Si otro libro tiene el ISBN.
+     * @since 1.1
+     */
+    private void comprobarIsbnLibre(String isbn, Integer id) {
+        if (filtroIsbn.podriaContener(isbn)
+                && libroRepository.findByIsbn(isbn).filter(libro -> !libro.getId().equals(id)).isPresent()) {
+            throw new IllegalStateException("Ya existe un libro con el ISBN: " + isbn);
+        }
+    }
+
+    /**
+     * Codifica el ID del último libro de una página como un cursor opaco.
+     *
+     * @param id El ID del último libro de la página.
+     * @return El cursor, en Base64 apto para URLs.
+     * @since 1.1
+     */
+    private static String codificarCursor(Integer id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("libro:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Obtiene el ID del último libro leído a partir de un cursor.
+     * También se acepta directamente el ID, para poder empezar a paginar desde un libro conocido.
+     *
+     * @param cursor El cursor o el ID.
+     * @return El ID del último libro leído.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     * @since 1.1
+     */
+    private static int decodificarCursor(String cursor) {
+        String valor = cursor.trim();
+        if (!valor.chars().allMatch(Character::isDigit)) {
+            // Base64.getUrlDecoder() lanza IllegalArgumentException si el texto no es Base64.
+            valor = new String(Base64.getUrlDecoder().decode(valor), StandardCharsets.UTF_8);
+            if (!valor.startsWith("libro:")) {
+                throw new IllegalArgumentException("Cursor no válido: " + cursor);
+            }
+            valor = valor.substring("libro:".length());
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor no válido: " + cursor, e);
+        }
+    }
 }
\ No newline at end of file
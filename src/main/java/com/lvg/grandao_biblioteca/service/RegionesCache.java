@@ -0,0 +1,52 @@
+package com.lvg.grandao_biblioteca.service;
+
+import com.lvg.grandao_biblioteca.modelo.dto.EstadisticasRegionCache;
+import org.springframework.stereotype.Service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Servicio que obtiene las estadísticas de las regiones de la caché de segundo nivel de Hibernate.
+ * Cada región es una caché JCache con las estadísticas activadas (ver {@code application.conf}), que el proveedor
+ * publica como un MBean {@code javax.cache:type=CacheStatistics}; las estadísticas se leen de esos MBeans,
+ * así que no hace falta activar las estadísticas globales de Hibernate.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Service
+public class RegionesCache {
+
+    private final MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * Obtiene las estadísticas de todas las regiones de la caché de segundo nivel.
+     *
+     * @return Las estadísticas de cada región, ordenadas por nombre.
+     * @since 1.1
+     */
+    public List<EstadisticasRegionCache> obtenerEstadisticas() {
+        List<EstadisticasRegionCache> estadisticas = new ArrayList<>();
+        try {
+            for (ObjectName nombre : servidor.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                estadisticas.add(new EstadisticasRegionCache(nombre.getKeyProperty("Cache"),
+                        leer(nombre, "CacheHits"), leer(nombre, "CacheMisses"),
+                        leer(nombre, "CachePuts"), leer(nombre, "CacheEvictions")));
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        estadisticas.sort(Comparator.comparing(EstadisticasRegionCache::getRegion));
+        return estadisticas;
+    }
+
+    private long leer(ObjectName nombre, String atributo) throws JMException {
+        return ((Number) servidor.getAttribute(nombre, atributo)).longValue();
+    }
+}
@@ -1,35 +1,114 @@
 package com.lvg.grandao_biblioteca.service;
 
 import com.lvg.grandao_biblioteca.modelo.dao.UsuarioDAO;
+import com.lvg.grandao_biblioteca.modelo.dto.ResultadoImportacion;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.Unmarshaller;
 import com.lvg.grandao_biblioteca.modelo.dto.Usuario;
 import com.lvg.grandao_biblioteca.modelo.dto.Usuarios;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.xml.stream.XMLStreamException;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Servicio encargado de gestionar las operaciones relacionadas con los usuarios.
  * Permite obtener la lista de usuarios y agregar nuevos usuarios al sistema.
+ * <p>
+ * En modo directo, varias instancias de la aplicación pueden compartir el archivo de usuarios. Antes de cada
+ * búsqueda se compara la generación del archivo con la del índice en memoria y, si otra instancia lo ha escrito,
+ * el índice se reconstruye.
  * @author Lucas Villa (k4ts0v@protonmail.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 @Service
 public class UsuarioService {
 
     private UsuarioDAO usuarioDAO;
 
+    private volatile IndiceUsuarios indice = new IndiceUsuarios();
+
+    // Generación del archivo de usuarios que refleja el índice. Solo se comprueba en modo directo, porque en los
+    // demás modos el archivo está reservado para esta instancia y los usuarios en memoria son los actuales.
+    private volatile long generacionIndice = -1;
+    private final boolean compartido;
+
+    // Protege el índice al reconstruirlo. Es un cerrojo y no synchronized porque la reconstrucción lee todo el archivo
+    // y, con hilos virtuales, los que esperan a un monitor bloquean su hilo portador.
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    private final Validator validator;
+
+    // Solo con el constructor vacío, que no recibe el validador de Spring: se crea aquí y se cierra en cerrar().
+    private final ValidatorFactory fabricaValidadores;
+
     /**
-     * Constructor vacío para la inicialización por Spring.
+     * Constructor vacío, que trabaja directamente sobre el archivo XML.
      * @since 1.0
      */
     public UsuarioService() {
         this.usuarioDAO = new UsuarioDAO();
+        this.compartido = true;
+        this.fabricaValidadores = Validation.buildDefaultValidatorFactory();
+        this.validator = fabricaValidadores.getValidator();
+        construirIndice();
+    }
+
+    /**
+     * Constructor para la inicialización por Spring, con el modo de almacenamiento configurado.
+     *
+     * @param modo Modo de almacenamiento de los usuarios ({@code directo}, {@code memoria} o {@code journal}).
+     * @param formato Formato de la instantánea de usuarios ({@code xml} o {@code binario}).
+     * @param retrasoEscrituraMs Milisegundos que se esperan antes de volcar los cambios al archivo en modo memoria.
+     * @param maxBytesJournal Tamaño del journal a partir del cual se compacta en el XML en modo journal.
+     * @param intervaloCompactacionMs Cada cuántos milisegundos se compacta el journal en modo journal.
+     * @param validator El validador de Spring, con el que se validan los usuarios importados.
+     * @since 1.1
+     */
+    @Autowired
+    public UsuarioService(@Value("${usuarios.almacen.modo:directo}") String modo,
+                          @Value("${usuarios.almacen.formato:xml}") String formato,
+                          @Value("${usuarios.almacen.retraso-escritura-ms:500}") long retrasoEscrituraMs,
+                          @Value("${usuarios.almacen.journal.max-bytes:1048576}") long maxBytesJournal,
+                          @Value("${usuarios.almacen.journal.intervalo-compactacion-ms:60000}") long intervaloCompactacionMs,
+                          Validator validator) {
+        this.usuarioDAO = new UsuarioDAO(UsuarioDAO.ModoAlmacen.valueOf(modo.trim().toUpperCase()),
+                UsuarioDAO.FormatoSnapshot.valueOf(formato.trim().toUpperCase()), retrasoEscrituraMs, maxBytesJournal, intervaloCompactacionMs);
+        this.compartido = UsuarioDAO.ModoAlmacen.valueOf(modo.trim().toUpperCase()) == UsuarioDAO.ModoAlmacen.DIRECTO;
+        this.validator = validator;
+        this.fabricaValidadores = null;
+        construirIndice();
+    }
+
+    /**
+     * Vuelca los cambios pendientes al cerrar la aplicación y, si el servicio ha creado su propio validador,
+     * cierra su fábrica.
+     * @since 1.1
+     */
+    @PreDestroy
+    public void cerrar() {
+        usuarioDAO.cerrar();
+        if (fabricaValidadores != null) {
+            fabricaValidadores.close();
+        }
     }
 
 
@@ -44,14 +123,200 @@ public class UsuarioService {
         return usuarioDAO.obtenerUsuarios();
     }
 
+    /**
+     * Obtiene un usuario por su ID.
+     *
+     * @param id El identificador del usuario.
+     * @return Un objeto Optional que puede contener el usuario si se encuentra, o estar vacío si no existe.
+     * @throws XMLStreamException Si ocurre un error al procesar el archivo XML.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     * @since 1.1
+     */
+    public Optional<Usuario> obtenerUsuarioPorId(Integer id) throws XMLStreamException, IOException {
+        return usuarioDAO.obtenerUsuarioPorId(id);
+    }
+
+    /**
+     * Recorre una página de usuarios de uno en uno, sin cargar la lista completa en memoria.
+     *
+     * @param offset Número de usuarios que se saltan antes de empezar a entregarlos.
+     * @param limit Número máximo de usuarios a entregar, o un valor negativo para entregarlos todos.
+     * @param consumidor Función que recibe cada usuario de la página.
+     * @throws XMLStreamException Si ocurre un error al procesar el archivo XML.
+     * @throws IOException Si ocurre un error al leer el archivo XML.
+     * @since 1.1
+     */
+    public void recorrerUsuarios(int offset, int limit, Consumer<Usuario> consumidor) throws XMLStreamException, IOException {
+        usuarioDAO.recorrerUsuarios(offset, limit, consumidor);
+    }
+
     /**
      * Agrega un nuevo usuario al sistema.
      *
      * @param usuario El objeto usuario que se desea agregar.
      * @throws JAXBException Si ocurre un error al escribir el archivo XML.
+     * @throws IllegalStateException Si, en modo MEMORIA o JOURNAL, ya existe un usuario con el mismo ID.
      * @since 1.0
      */
     public void agregarUsuario(Usuario usuario) throws JAXBException {
+        long antes = usuarioDAO.obtenerGeneracion();
         usuarioDAO.agregarUsuario(usuario);
+        registrarEscritura(antes, List.of(usuario));
+    }
+
+    /**
+     * Importa un lote de usuarios, aplicándolo con una sola lectura y una sola escritura del almacén.
+     * Cada usuario se valida con las mismas restricciones que en el alta individual; los usuarios no válidos
+     * y los que repiten un ID (dentro del lote o ya existente) no se agregan.
+     *
+     * @param lote Los usuarios a importar.
+     * @return El resultado de cada elemento del lote, en el mismo orden.
+     * @throws JAXBException Si ocurre un error al escribir el archivo XML.
+     * @since 1.1
+     */
+    public List<ResultadoImportacion> importarUsuarios(List<Usuario> lote) throws JAXBException {
+        ResultadoImportacion[] resultados = new ResultadoImportacion[lote.size()];
+        List<Usuario> validos = new ArrayList<>(lote.size());
+        List<Integer> posiciones = new ArrayList<>(lote.size());
+        Set<Integer> idsDelLote = new HashSet<>();
+
+        for (int i = 0; i < lote.size(); i++) {
+            Usuario usuario = lote.get(i);
+            if (usuario == null) {
+                resultados[i] = new ResultadoImportacion(i, null, ResultadoImportacion.Estado.INVALIDO, List.of("Usuario vacío"));
+                continue;
+            }
+            Set<ConstraintViolation<Usuario>> violaciones = validator.validate(usuario);
+            if (!violaciones.isEmpty()) {
+                List<String> errores = violaciones.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .toList();
+                resultados[i] = new ResultadoImportacion(i, usuario.getUsuarioId(), ResultadoImportacion.Estado.INVALIDO, errores);
+            } else if (usuario.getUsuarioId() != null && !idsDelLote.add(usuario.getUsuarioId())) {
+                resultados[i] = new ResultadoImportacion(i, usuario.getUsuarioId(), ResultadoImportacion.Estado.DUPLICADO,
+                        List.of("ID repetido dentro del lote"));
+            } else {
+                validos.add(usuario);
+                posiciones.add(i);
+            }
+        }
+
+        // Se aplica todo el lote de una vez; el DAO devuelve los IDs que ya existían.
+        long antes = usuarioDAO.obtenerGeneracion();
+        Set<Integer> existentes = usuarioDAO.agregarUsuarios(validos);
+        List<Usuario> creados = new ArrayList<>(validos.size());
+        for (int j = 0; j < validos.size(); j++) {
+            Usuario usuario = validos.get(j);
+            int i = posiciones.get(j);
+            if (usuario.getUsuarioId() != null && existentes.contains(usuario.getUsuarioId())) {
+                resultados[i] = new ResultadoImportacion(i, usuario.getUsuarioId(), ResultadoImportacion.Estado.DUPLICADO,
+                        List.of("Ya existe un usuario con ese ID"));
+            } else {
+                creados.add(usuario);
+                resultados[i] = new ResultadoImportacion(i, usuario.getUsuarioId(), ResultadoImportacion.Estado.CREADO, List.of());
+            }
+        }
+        registrarEscritura(antes, creados);
+        return List.of(resultados);
+    }
+
+    /**
+     * Busca un usuario por su correo usando el índice en memoria.
+     *
+     * @param correo El correo del usuario.
+     * @return Un Optional con el usuario encontrado, o vacío si no existe.
+     * @since 1.1
+     */
+    public Optional<Usuario> buscarPorCorreo(String correo) {
+        return indiceActual().buscarPorCorreo(correo);
+    }
+
+    /**
+     * Busca los usuarios con un teléfono usando el índice en memoria.
+     *
+     * @param telefono El teléfono, con o sin espacios.
+     * @return La lista de usuarios con ese teléfono.
+     * @since 1.1
+     */
+    public List<Usuario> buscarPorTelefono(String telefono) {
+        return indiceActual().buscarPorTelefono(telefono);
+    }
+
+    /**
+     * Busca los usuarios cuyo nombre empieza por un prefijo usando el índice en memoria.
+     *
+     * @param prefijo El prefijo del nombre, sin distinguir mayúsculas ni tildes.
+     * @param limite Número máximo de usuarios a devolver.
+     * @return La lista de usuarios encontrados.
+     * @since 1.1
+     */
+    public List<Usuario> buscarPorPrefijo(String prefijo, int limite) {
+        return indiceActual().buscarPorPrefijo(prefijo, limite);
+    }
+
+    /**
+     * Obtiene el índice en memoria, reconstruyéndolo antes si otra instancia ha escrito el archivo de usuarios.
+     *
+     * @return El índice actualizado.
+     * @since 1.1
+     */
+    private IndiceUsuarios indiceActual() {
+        if (compartido && usuarioDAO.obtenerGeneracion() != generacionIndice) {
+            construirIndice();
+        }
+        return indice;
+    }
+
+    /**
+     * Añade al índice los usuarios que esta instancia acaba de escribir. Si la escritura es la única que ha habido
+     * desde que se construyó el índice, el índice sigue al día; si no, se reconstruirá en la siguiente búsqueda.
+     *
+     * @param antes Generación del archivo antes de la escritura.
+     * @param usuarios Los usuarios escritos.
+     * @since 1.1
+     */
+    private void registrarEscritura(long antes, List<Usuario> usuarios) {
+        cerrojo.lock();
+        try {
+            for (Usuario usuario : usuarios) {
+                indice.agregar(usuario);
+            }
+            if (compartido && generacionIndice == antes && usuarioDAO.obtenerGeneracion() == antes + 1) {
+                generacionIndice = antes + 1;
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Construye los índices en memoria a partir de los usuarios almacenados.
+     *
+     * @throws IllegalStateException Si no se pueden leer los usuarios.
+     * @since 1.1
+     */
+    private void construirIndice() {
+        cerrojo.lock();
+        try {
+            // La generación se lee antes que los usuarios: si cambia mientras se leen, el índice se volverá a construir.
+            long generacion = usuarioDAO.obtenerGeneracion();
+            // Otro hilo puede haberlo reconstruido mientras este esperaba.
+            if (generacion == generacionIndice) {
+                return;
+            }
+            IndiceUsuarios nuevo = new IndiceUsuarios();
+            try {
+                for (Usuario usuario : usuarioDAO.obtenerUsuarios()) {
+                    nuevo.agregar(usuario);
+                }
+            } catch (JAXBException e) {
+                throw new IllegalStateException("No se han podido indexar los usuarios", e);
+            }
+            indice = nuevo;
+            generacionIndice = generacion;
+        } finally {
+            cerrojo.unlock();
+        }
     }
 }
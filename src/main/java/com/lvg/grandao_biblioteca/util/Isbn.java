@@ -0,0 +1,120 @@
+package com.lvg.grandao_biblioteca.util;
+
+/**
+ * Utilidades para validar y normalizar ISBN-10 e ISBN-13.
+ * <p>
+ * Los ISBN se recorren una sola vez, carácter a carácter, calculando a la vez el valor y los dígitos de control
+ * de ISBN-10 e ISBN-13, sin expresiones regulares ni cadenas intermedias: {@link #esValido(CharSequence)} y
+ * {@link #aNumero(CharSequence)} no reservan memoria. Se ignoran los guiones, los espacios y cualquier otro carácter
+ * que no sea un dígito o una 'X' (en mayúscula o minúscula), que solo puede ser el control de un ISBN-10.
+ * <p>
+ * La forma canónica de un ISBN es su ISBN-13 sin guiones: los ISBN-10 se convierten añadiendo el prefijo 978
+ * y recalculando el dígito de control.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class Isbn {
+
+    // Valor de un ISBN no válido en aNumero.
+    public static final long NO_VALIDO = -1;
+
+    // Prefijo EAN de los ISBN-10 convertidos, ya multiplicado por 10^9, y su suma ponderada (9·1 + 7·3 + 8·1).
+    private static final long PREFIJO_978 = 978_000_000_000L;
+    private static final int SUMA_PREFIJO_978 = 38;
+
+    private Isbn() {}
+
+    /**
+     * Indica si un ISBN-10 o ISBN-13 es válido.
+     *
+     * @param isbn El ISBN, con o sin guiones.
+     * @return {@code true} si el ISBN es válido, {@code false} si no lo es o es nulo.
+     * @since 1.1
+     */
+    public static boolean esValido(CharSequence isbn) {
+        return aNumero(isbn) != NO_VALIDO;
+    }
+
+    /**
+     * Obtiene el ISBN-13 canónico de un ISBN-10 o ISBN-13, como texto de 13 dígitos sin guiones.
+     *
+     * @param isbn El ISBN, con o sin guiones.
+     * @return El ISBN-13 canónico, o nulo si el ISBN no es válido.
+     * @since 1.1
+     */
+    public static String canonizar(CharSequence isbn) {
+        long numero = aNumero(isbn);
+        if (numero == NO_VALIDO) {
+            return null;
+        }
+        char[] digitos = new char[13];
+        for (int i = 12; i >= 0; i--) {
+            digitos[i] = (char) ('0' + numero % 10);
+            numero /= 10;
+        }
+        return new String(digitos);
+    }
+
+    /**
+     * Obtiene el ISBN-13 canónico de un ISBN-10 o ISBN-13 como número, sin reservar memoria.
+     * <p>
+     * En una sola pasada se acumulan el valor de los dígitos, la suma ponderada de ISBN-13 (pesos 1 y 3 alternos),
+     * la de ISBN-10 (pesos del 10 al 1) y la que tendrían los nueve primeros dígitos detrás del prefijo 978, para
+     * calcular el control del ISBN-13 convertido sin volver a recorrer el texto.
+     *
+     * @param isbn El ISBN, con o sin guiones.
+     * @return El ISBN-13 canónico, o {@link #NO_VALIDO} si el ISBN no es válido o es nulo.
+     * @since 1.1
+     */
+    public static long aNumero(CharSequence isbn) {
+        if (isbn == null) {
+            return NO_VALIDO;
+        }
+        long valor = 0;
+        int digitos = 0;
+        int suma13 = 0;
+        int suma10 = 0;
+        int suma978 = SUMA_PREFIJO_978;
+        boolean controlX = false;
+        for (int i = 0, longitud = isbn.length(); i < longitud; i++) {
+            char c = isbn.charAt(i);
+            int digito;
+            if (c >= '0' && c <= '9') {
+                digito = c - '0';
+            } else if (c == 'X' || c == 'x') {
+                // La X solo puede ser el décimo carácter significativo, el control de un ISBN-10.
+                if (digitos != 9) {
+                    return NO_VALIDO;
+                }
+                digito = 10;
+                controlX = true;
+            } else {
+                continue;
+            }
+            if (controlX && digito != 10 || digitos == 13) {
+                // Nada puede seguir a la X, y ningún ISBN tiene más de 13 dígitos.
+                return NO_VALIDO;
+            }
+            suma13 += (digitos & 1) == 0 ? digito : digito * 3;
+            if (digitos < 10) {
+                suma10 += (10 - digitos) * digito;
+            }
+            if (digitos < 9) {
+                suma978 += (digitos & 1) == 0 ? digito * 3 : digito;
+            }
+            if (!controlX) {
+                valor = valor * 10 + digito;
+            }
+            digitos++;
+        }
+        if (digitos == 13) {
+            return suma13 % 10 == 0 ? valor : NO_VALIDO;
+        }
+        if (digitos == 10 && suma10 % 11 == 0) {
+            long primeros = controlX ? valor : valor / 10;
+            return (PREFIJO_978 + primeros) * 10 + (10 - suma978 % 10) % 10;
+        }
+        return NO_VALIDO;
+    }
+}
@@ -0,0 +1,32 @@
+package com.lvg.grandao_biblioteca.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Utilidades para comparar textos escritos por los usuarios, como nombres de usuario, géneros o palabras de un título.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class Textos {
+
+    private Textos() {}
+
+    /**
+     * Normaliza un texto para buscarlo: minúsculas, sin tildes y sin espacios al principio ni al final.
+     *
+     * @param texto El texto a normalizar.
+     * @return El texto normalizado.
+     * @since 1.1
+     */
+    public static String normalizar(String texto) {
+        String recortado = texto.trim();
+        // Un texto solo con caracteres ASCII no tiene tildes; se evita descomponerlo y aplicarle la expresión regular.
+        if (recortado.chars().allMatch(c -> c < 0x80)) {
+            return recortado.toLowerCase(Locale.ROOT);
+        }
+        String sinTildes = Normalizer.normalize(recortado, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+}
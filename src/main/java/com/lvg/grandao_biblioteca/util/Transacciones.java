@@ -0,0 +1,92 @@
+package com.lvg.grandao_biblioteca.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Utilidades para coordinar estructuras en memoria con las transacciones de la base de datos.
+ * @author Lucas Villa (k4ts0v@protonmail.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class Transacciones {
+
+    private Transacciones() {}
+
+    /**
+     * Ejecuta una acción cuando se confirme la transacción en curso, o inmediatamente si no hay ninguna.
+     * Así, una transacción que se deshace no deja desajustados los índices, filtros y recuentos en memoria.
+     *
+     * @param accion La acción a ejecutar.
+     * @since 1.1
+     */
+    public static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Acumula un cambio en el lote de la transacción en curso y aplica el lote una sola vez al confirmarla,
+     * o inmediatamente si no hay ninguna. Así, una estructura cara de modificar se actualiza una vez por
+     * transacción en lugar de una vez por cada cambio; si la transacción se deshace, el lote se descarta.
+     *
+     * @param clave Identifica el lote dentro de la transacción, normalmente el objeto al que se aplica.
+     * @param crear Crea un lote vacío, la primera vez que se usa la clave en la transacción.
+     * @param cambio Añade el cambio al lote.
+     * @param aplicar Aplica el lote completo.
+     * @param <T> El tipo del lote.
+     * @since 1.1
+     */
+    public static <T> void alConfirmarEnLote(Object clave, Supplier<T> crear, Consumer<T> cambio, Consumer<T> aplicar) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            T lote = crear.get();
+            cambio.accept(lote);
+            aplicar.accept(lote);
+            return;
+        }
+        // El lote se guarda en la sincronización de la transacción, y no como recurso del hilo, para que una
+        // transacción anidada que suspende a otra no añada sus cambios al lote de la suspendida.
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof Lote<?> lote && lote.clave == clave) {
+                @SuppressWarnings("unchecked")
+                T cambios = (T) lote.cambios;
+                cambio.accept(cambios);
+                return;
+            }
+        }
+        Lote<T> lote = new Lote<>(clave, crear.get(), aplicar);
+        TransactionSynchronizationManager.registerSynchronization(lote);
+        cambio.accept(lote.cambios);
+    }
+
+    /**
+     * Cambios acumulados en una transacción para un mismo objeto, que se aplican al confirmarla.
+     */
+    private static final class Lote<T> implements TransactionSynchronization {
+        private final Object clave;
+        private final T cambios;
+        private final Consumer<T> aplicar;
+
+        private Lote(Object clave, T cambios, Consumer<T> aplicar) {
+            this.clave = clave;
+            this.cambios = cambios;
+            this.aplicar = aplicar;
+        }
+
+        @Override
+        public void afterCommit() {
+            aplicar.accept(cambios);
+        }
+    }
+}
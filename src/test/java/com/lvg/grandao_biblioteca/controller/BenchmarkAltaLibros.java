@@ -0,0 +1,85 @@
+package com.lvg.grandao_biblioteca.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compara cuántos libros por segundo se crean con un POST por libro y con {@code POST /api/libros/batch}.
+ * No es un test: se ejecuta a mano contra una instancia en marcha, porque necesita la base de datos real.
+ * <p>
+ * Uso: {@code BenchmarkAltaLibros [urlBase] [libros] [tamanoLote]}, por defecto {@code http://localhost:8090 2000 500};
+ * como mucho 100000 libros.
+ * Los libros creados se quedan en la base de datos.
+ * <p>
+ * Cada ejecución numera sus ISBN a partir de un número aleatorio de 9 cifras detrás del prefijo 979, así que dos
+ * ejecuciones solo chocan si sus rangos se solapan: con 2000 libros, unas 8 veces entre un millón.
+ */
+public class BenchmarkAltaLibros {
+
+    // Números de 9 cifras que caben detrás del prefijo 979.
+    private static final long MAX_NUMERO = 1_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8090";
+        int libros = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int tamanoLote = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        HttpClient cliente = HttpClient.newHttpClient();
+        URI uno = URI.create(base + "/api/libros");
+        URI lote = URI.create(base + "/api/libros/batch");
+        // El ISBN es único, así que cada ejecución empieza en un número distinto; los libros por lotes siguen
+        // a los de uno en uno.
+        long primero = ThreadLocalRandom.current().nextLong(MAX_NUMERO - 2L * libros);
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < libros; i++) {
+            enviar(cliente, uno, json(primero + i), 201);
+        }
+        double segundosUno = (System.nanoTime() - inicio) / 1e9;
+
+        inicio = System.nanoTime();
+        for (int i = 0; i < libros; i += tamanoLote) {
+            StringJoiner cuerpo = new StringJoiner(",", "[", "]");
+            for (int j = i; j < Math.min(libros, i + tamanoLote); j++) {
+                cuerpo.add(json(primero + libros + j));
+            }
+            enviar(cliente, lote, cuerpo.toString(), 201);
+        }
+        double segundosLote = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("POST /api/libros:       %d libros en %.2f s (%.0f libros/s)%n", libros, segundosUno, libros / segundosUno);
+        System.out.printf("POST /api/libros/batch: %d libros en %.2f s (%.0f libros/s, lotes de %d)%n",
+                libros, segundosLote, libros / segundosLote, tamanoLote);
+    }
+
+    private static String json(long numero) {
+        return "{\"titulo\":\"Libro de prueba\",\"genero\":\"Ficción\",\"isbn\":\"" + isbn(numero)
+                + "\",\"cantidad\":1}";
+    }
+
+    /**
+     * Genera el ISBN-13 válido con el prefijo 979 y el número indicado, de 9 cifras, detrás.
+     */
+    private static String isbn(long numero) {
+        String digitos = String.format("979%09d", numero);
+        int suma = 0;
+        for (int k = 0; k < 12; k++) {
+            suma += (digitos.charAt(k) - '0') * (k % 2 == 0 ? 1 : 3);
+        }
+        return digitos + (10 - suma % 10) % 10;
+    }
+
+    private static void enviar(HttpClient cliente, URI uri, String cuerpo, int estadoEsperado) throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() != estadoEsperado) {
+            throw new IllegalStateException(uri + " ha devuelto " + respuesta.statusCode());
+        }
+    }
+}
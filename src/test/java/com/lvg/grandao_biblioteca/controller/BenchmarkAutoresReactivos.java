@@ -0,0 +1,156 @@
+package com.lvg.grandao_biblioteca.controller;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compara bajo carga la lista de autores bloqueante ({@code GET /api/autores}) con la reactiva
+ * ({@code GET /api/reactivo/autores}, como array JSON y como NDJSON): para cada una lanza las mismas peticiones con
+ * la misma concurrencia y muestra las peticiones por segundo, la latencia hasta el primer byte y hasta el último
+ * (mediana y percentil 99) y las respuestas que no han sido 200.
+ * No es un test: se ejecuta a mano contra una instancia en marcha, porque necesita MongoDB.
+ * <p>
+ * Uso: {@code BenchmarkAutoresReactivos [urlBase] [concurrencia] [peticiones] [autoresNuevos]}, por defecto
+ * {@code http://localhost:8090 64 2000 0}. Si {@code autoresNuevos} es mayor que 0, antes se crean esos autores
+ * con {@code POST /api/reactivo/autores}, y se quedan en la base de datos. Con la colección vacía la lista
+ * bloqueante responde 204 y cuenta como no 200, así que la primera ejecución debe crear autores (por ejemplo, 200).
+ * <p>
+ * Para que los dos lados tengan el mismo presupuesto de hilos, la instancia se arranca con hilos de plataforma y un
+ * pool de Tomcat pequeño, y con el compartimento de MongoDB lo bastante grande para no rechazar peticiones, por
+ * ejemplo {@code --spring.threads.virtual.enabled=false --server.tomcat.threads.max=8
+ * --compartimentos.mongodb.maximo=1000}. Con la concurrencia por encima de esos 8 hilos, las peticiones bloqueantes
+ * hacen cola esperando un hilo libre, mientras que las reactivas lo dejan libre en cuanto empiezan a leer de MongoDB.
+ */
+public class BenchmarkAutoresReactivos {
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8090";
+        int concurrencia = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int peticiones = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int autoresNuevos = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        HttpClient cliente = HttpClient.newHttpClient();
+
+        for (int i = 0; i < autoresNuevos; i++) {
+            String autor = "{\"nombre\":\"Autor " + letras(i) + "\",\"paisOrigen\":\"Portugal\"}";
+            HttpResponse<Void> creado = cliente.send(HttpRequest.newBuilder(URI.create(base + "/api/reactivo/autores"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(autor))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (creado.statusCode() != 201) {
+                throw new IllegalStateException("POST /api/reactivo/autores ha devuelto " + creado.statusCode());
+            }
+        }
+
+        System.out.printf("%d peticiones por endpoint, %d a la vez%n", peticiones, concurrencia);
+        medir(cliente, "bloqueante, JSON", URI.create(base + "/api/autores"), "application/json", concurrencia, peticiones);
+        medir(cliente, "reactivo, JSON", URI.create(base + "/api/reactivo/autores"), "application/json", concurrencia, peticiones);
+        medir(cliente, "reactivo, NDJSON", URI.create(base + "/api/reactivo/autores"), "application/x-ndjson", concurrencia, peticiones);
+    }
+
+    /**
+     * Lanza las peticiones contra un endpoint, como mucho {@code concurrencia} a la vez, cada una desde su propio
+     * hilo virtual, y muestra los resultados. Antes se lanza una ronda más corta para calentar el servidor.
+     */
+    private static void medir(HttpClient cliente, String nombre, URI uri, String tipo, int concurrencia, int peticiones)
+            throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(uri).header("Accept", tipo).build();
+        lanzar(cliente, peticion, concurrencia, Math.max(concurrencia, peticiones / 10));
+        long inicio = System.nanoTime();
+        Resultado resultado = lanzar(cliente, peticion, concurrencia, peticiones);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        Arrays.sort(resultado.primerByte);
+        Arrays.sort(resultado.total);
+        System.out.printf("%-18s %8.0f peticiones/s  primer byte p50 %6.1f ms, p99 %6.1f ms  "
+                        + "total p50 %6.1f ms, p99 %6.1f ms  %,d bytes por respuesta, %d no 200%n",
+                nombre, peticiones / segundos,
+                percentil(resultado.primerByte, 50), percentil(resultado.primerByte, 99),
+                percentil(resultado.total, 50), percentil(resultado.total, 99),
+                resultado.bytes.get() / peticiones, resultado.fallos.get());
+    }
+
+    private static Resultado lanzar(HttpClient cliente, HttpRequest peticion, int concurrencia, int peticiones)
+            throws Exception {
+        Resultado resultado = new Resultado(peticiones);
+        AtomicInteger siguiente = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tareas = new ArrayList<>(concurrencia);
+            for (int h = 0; h < concurrencia; h++) {
+                tareas.add(hilos.submit(() -> {
+                    salida.await();
+                    byte[] bufer = new byte[8192];
+                    for (int i = siguiente.getAndIncrement(); i < peticiones; i = siguiente.getAndIncrement()) {
+                        long inicio = System.nanoTime();
+                        HttpResponse<InputStream> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofInputStream());
+                        long bytes = 0;
+                        try (InputStream cuerpo = respuesta.body()) {
+                            int leidos = cuerpo.read(bufer);
+                            resultado.primerByte[i] = System.nanoTime() - inicio;
+                            while (leidos >= 0) {
+                                bytes += leidos;
+                                leidos = cuerpo.read(bufer);
+                            }
+                        }
+                        resultado.total[i] = System.nanoTime() - inicio;
+                        resultado.bytes.addAndGet(bytes);
+                        if (respuesta.statusCode() != 200) {
+                            resultado.fallos.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        }
+        return resultado;
+    }
+
+    private static double percentil(long[] ordenados, int percentil) {
+        int posicion = (int) Math.ceil(percentil / 100.0 * ordenados.length) - 1;
+        return ordenados[Math.max(posicion, 0)] / 1e6;
+    }
+
+    /**
+     * Convierte un número en letras ({@code 0} es {@code A}, {@code 26} es {@code BA}), porque el nombre de un
+     * autor solo puede tener letras y espacios.
+     */
+    private static String letras(int numero) {
+        StringBuilder letras = new StringBuilder();
+        do {
+            letras.insert(0, (char) ('A' + numero % 26));
+            numero /= 26;
+        } while (numero > 0);
+        return letras.toString();
+    }
+
+    /**
+     * Tiempos, en nanosegundos, y contadores de una ronda de peticiones.
+     */
+    private static final class Resultado {
+        final long[] primerByte;
+        final long[] total;
+        final AtomicInteger fallos = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+
+        Resultado(int peticiones) {
+            this.primerByte = new long[peticiones];
+            this.total = new long[peticiones];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.lvg.grandao_biblioteca.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lanza muchos préstamos a la vez sobre un mismo libro con {@code POST /api/libros/{id}/prestar} y comprueba que
+ * no se presta ningún ejemplar de más: con {@code copias} ejemplares, exactamente {@code copias} préstamos deben
+ * devolver 204 y el resto 409, y la cantidad final debe quedar en 0. También muestra las peticiones por segundo.
+ * No es un test: se ejecuta a mano contra una instancia en marcha, porque necesita la base de datos real.
+ * <p>
+ * Uso: {@code BenchmarkPrestamos [urlBase] [copias] [peticiones]}, por defecto {@code http://localhost:8090 100 500}.
+ * Todas las peticiones se lanzan a la vez, cada una desde su propio hilo virtual.
+ * El libro creado se queda en la base de datos.
+ * <p>
+ * El compartimento de MariaDB ({@link Compartimento}) solo deja pasar unas pocas peticiones a la vez y rechaza
+ * con 503 las que esperan demasiado; esas se repiten tras el {@code Retry-After} que indica la respuesta, y se
+ * cuentan aparte. Para medir el préstamo sin esos reintentos, la instancia se arranca con un compartimento tan
+ * grande como la concurrencia, por ejemplo {@code --compartimentos.mariadb.maximo=500
+ * --compartimentos.mariadb.espera-ms=30000}.
+ */
+public class BenchmarkPrestamos {
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8090";
+        int copias = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int peticiones = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        HttpClient cliente = HttpClient.newHttpClient();
+        ObjectMapper mapper = new ObjectMapper();
+
+        String libro = "{\"titulo\":\"Libro muy pedido\",\"genero\":\"Ficción\",\"isbn\":\""
+                + isbn(System.currentTimeMillis() % 1_000_000_000L) + "\",\"cantidad\":" + copias + "}";
+        HttpResponse<String> creado = cliente.send(HttpRequest.newBuilder(URI.create(base + "/api/libros"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(libro))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (creado.statusCode() != 201) {
+            throw new IllegalStateException("POST /api/libros ha devuelto " + creado.statusCode());
+        }
+        int id = mapper.readTree(creado.body()).get("id").asInt();
+        URI prestar = URI.create(base + "/api/libros/" + id + "/prestar");
+
+        AtomicInteger prestados = new AtomicInteger();
+        AtomicInteger sinCopias = new AtomicInteger();
+        AtomicInteger otros = new AtomicInteger();
+        AtomicInteger reintentos = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        long inicio;
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tareas = new ArrayList<>(peticiones);
+            for (int i = 0; i < peticiones; i++) {
+                tareas.add(hilos.submit(() -> {
+                    salida.await();
+                    HttpRequest peticion = HttpRequest.newBuilder(prestar).POST(HttpRequest.BodyPublishers.noBody()).build();
+                    HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                    // Rechazada por el compartimento: no ha llegado a la base de datos, así que se repite.
+                    while (respuesta.statusCode() == 503) {
+                        reintentos.incrementAndGet();
+                        Thread.sleep(1000L * respuesta.headers().firstValueAsLong("Retry-After").orElse(1));
+                        respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                    }
+                    int estado = respuesta.statusCode();
+                    (estado == 204 ? prestados : estado == 409 ? sinCopias : otros).incrementAndGet();
+                    return null;
+                }));
+            }
+            inicio = System.nanoTime();
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        HttpResponse<String> leido = cliente.send(HttpRequest.newBuilder(URI.create(base + "/api/libros/" + id)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        int cantidadFinal = mapper.readTree(leido.body()).get("cantidad").asInt();
+
+        System.out.printf("%d préstamos concurrentes de un libro con %d ejemplares en %.2f s (%.0f peticiones/s)%n",
+                peticiones, copias, segundos, peticiones / segundos);
+        System.out.printf("204 prestado: %d, 409 sin copias: %d, otros: %d, cantidad final: %d, reintentos tras 503: %d%n",
+                prestados.get(), sinCopias.get(), otros.get(), cantidadFinal, reintentos.get());
+        int esperados = Math.min(copias, peticiones);
+        if (prestados.get() != esperados || cantidadFinal != copias - esperados || otros.get() != 0) {
+            throw new IllegalStateException("Se han prestado " + prestados.get() + " ejemplares, se esperaban " + esperados);
+        }
+        System.out.println("Sin préstamos de más.");
+    }
+
+    /**
+     * Genera un ISBN-13 válido a partir de un número de hasta nueve cifras.
+     */
+    private static String isbn(long numero) {
+        String digitos = String.format("979%09d", numero);
+        int suma = 0;
+        for (int k = 0; k < 12; k++) {
+            suma += (digitos.charAt(k) - '0') * (k % 2 == 0 ? 1 : 3);
+        }
+        return digitos + (10 - suma % 10) % 10;
+    }
+}
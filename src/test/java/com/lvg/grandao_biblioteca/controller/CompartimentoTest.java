@@ -0,0 +1,123 @@
+package com.lvg.grandao_biblioteca.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Simula un almacén bloqueado (el XML de usuarios) con un controlador que no responde hasta que se le deja,
+ * y comprueba que su compartimento rechaza enseguida las peticiones de más mientras los libros siguen respondiendo.
+ */
+class CompartimentoTest {
+
+    private static final int MAXIMO = 2;
+    private static final long ESPERA_MS = 100;
+
+    private final CountDownLatch atascado = new CountDownLatch(1);
+    private final CountDownLatch dentro = new CountDownLatch(MAXIMO);
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+    private Compartimento xml;
+    private Compartimento mariadb;
+    private MockMvc mvc;
+
+    @RestController
+    class AlmacenesFalsos {
+
+        @GetMapping("/api/usuarios/lento")
+        String usuarios() throws InterruptedException {
+            dentro.countDown();
+            atascado.await();
+            return "usuarios";
+        }
+
+        @GetMapping("/api/usuarios/fallo")
+        String fallo() {
+            throw new IllegalStateException("El almacén ha fallado");
+        }
+
+        @GetMapping("/api/libros/rapido")
+        String libros() {
+            return "libros";
+        }
+    }
+
+    @BeforeEach
+    void preparar() {
+        xml = Compartimento.crear("xml", MAXIMO, ESPERA_MS);
+        mariadb = Compartimento.crear("mariadb", MAXIMO, ESPERA_MS);
+        mvc = MockMvcBuilders.standaloneSetup(new AlmacenesFalsos())
+                .addMappedInterceptors(new String[] {"/api/usuarios/**"}, xml)
+                .addMappedInterceptors(new String[] {"/api/libros/**"}, mariadb)
+                .build();
+    }
+
+    @AfterEach
+    void cerrar() {
+        atascado.countDown();
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void unAlmacenBloqueadoNoAfectaALosDemas() throws Exception {
+        // Se ocupan todos los huecos del XML con peticiones que se quedan bloqueadas.
+        List<Future<Integer>> bloqueadas = new ArrayList<>();
+        for (int i = 0; i < MAXIMO; i++) {
+            bloqueadas.add(hilos.submit(() -> mvc.perform(get("/api/usuarios/lento")).andReturn().getResponse().getStatus()));
+        }
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        assertEquals(MAXIMO, xml.ocupados());
+
+        // La siguiente espera como mucho ESPERA_MS y se rechaza sin llegar al controlador.
+        long inicio = System.nanoTime();
+        mvc.perform(get("/api/usuarios/lento"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        long esperaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        assertTrue(esperaMs >= ESPERA_MS - 10 && esperaMs < 2_000, "Espera de " + esperaMs + " ms");
+
+        // Los libros tienen su propio compartimento y responden con normalidad.
+        mvc.perform(get("/api/libros/rapido")).andExpect(status().isOk());
+        assertEquals(0, mariadb.ocupados());
+
+        // Al desbloquearse, las peticiones terminan bien y los huecos quedan libres.
+        atascado.countDown();
+        for (Future<Integer> bloqueada : bloqueadas) {
+            assertEquals(200, bloqueada.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, xml.ocupados());
+        mvc.perform(get("/api/usuarios/lento")).andExpect(status().isOk());
+    }
+
+    @Test
+    void elHuecoSeLiberaAunqueElAlmacenFalle() {
+        for (int i = 0; i < MAXIMO + 1; i++) {
+            assertThrows(Exception.class, () -> mvc.perform(get("/api/usuarios/fallo")));
+        }
+        assertEquals(0, xml.ocupados());
+    }
+
+    @Test
+    void rechazaLimitesNoValidos() {
+        assertThrows(IllegalArgumentException.class, () -> Compartimento.crear("xml", 0, ESPERA_MS));
+        assertThrows(IllegalArgumentException.class, () -> Compartimento.crear("xml", 1, -1));
+    }
+}
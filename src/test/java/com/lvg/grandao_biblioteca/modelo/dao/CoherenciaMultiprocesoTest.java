@@ -0,0 +1,115 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import com.lvg.grandao_biblioteca.modelo.dto.Categoria;
+import com.lvg.grandao_biblioteca.modelo.dto.Usuario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que varias instancias de la aplicación (varias JVM) pueden escribir a la vez los mismos archivos
+ * de categorías y usuarios sin perder ni mezclar escrituras, y que un DAO abierto antes ve lo que escriben las demás.
+ */
+class CoherenciaMultiprocesoTest {
+
+    private static final int PROCESOS = 4;
+    private static final int ESCRITURAS = 25;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void variasJvmEscribenSinPerderNiMezclarDatos() throws Exception {
+        Path categorias = directorio.resolve("categorias.txt");
+        Path usuarios = directorio.resolve("usuarios.xml");
+        Files.writeString(categorias, "categoriaId,nombreCategoria\n", StandardCharsets.UTF_8);
+        Files.writeString(usuarios, "<usuarios></usuarios>", StandardCharsets.UTF_8);
+
+        // DAOs abiertos antes de que escriban los demás procesos.
+        CategoriaDAO categoriaDAO = new CategoriaDAO(categorias);
+        UsuarioDAO usuarioDAO = new UsuarioDAO(usuarios, UsuarioDAO.ModoAlmacen.DIRECTO, 0);
+        long generacionCategorias = categoriaDAO.obtenerGeneracion();
+        long generacionUsuarios = usuarioDAO.obtenerGeneracion();
+
+        List<Process> procesos = new ArrayList<>();
+        for (int i = 0; i < PROCESOS; i++) {
+            procesos.add(new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    Proceso.class.getName(), directorio.toString(), String.valueOf(i + 1))
+                    .inheritIO()
+                    .start());
+        }
+        for (Process proceso : procesos) {
+            assertTrue(proceso.waitFor(2, TimeUnit.MINUTES), "El proceso no ha terminado a tiempo");
+            assertEquals(0, proceso.exitValue());
+        }
+
+        // Cada línea está entera y una sola vez.
+        List<String> lineas = Files.readAllLines(categorias, StandardCharsets.UTF_8);
+        assertEquals(1 + PROCESOS * ESCRITURAS, lineas.size());
+        Map<String, Integer> vistas = new HashMap<>();
+        for (String linea : lineas.subList(1, lineas.size())) {
+            vistas.merge(linea, 1, Integer::sum);
+        }
+        for (int proceso = 1; proceso <= PROCESOS; proceso++) {
+            for (int i = 0; i < ESCRITURAS; i++) {
+                long id = proceso * 1000L + i;
+                assertEquals(1, vistas.getOrDefault(new Categoria(id, "Categoria " + id).toString(), 0));
+            }
+        }
+
+        // El DAO abierto antes detecta por la generación que el archivo ha cambiado y ve las categorías nuevas.
+        assertTrue(categoriaDAO.estaDesactualizado());
+        for (int proceso = 1; proceso <= PROCESOS; proceso++) {
+            assertTrue(categoriaDAO.obtenerCategoriaPorId(proceso * 1000L + ESCRITURAS - 1).isPresent());
+        }
+        assertTrue(categoriaDAO.obtenerGeneracion() >= generacionCategorias + PROCESOS);
+        categoriaDAO.cerrar();
+
+        // Ningún usuario se ha perdido por escrituras cruzadas del XML.
+        Map<Integer, Integer> ids = new HashMap<>();
+        for (Usuario usuario : usuarioDAO.obtenerUsuarios()) {
+            ids.merge(usuario.getUsuarioId(), 1, Integer::sum);
+        }
+        assertEquals(PROCESOS * ESCRITURAS, ids.size());
+        for (int proceso = 1; proceso <= PROCESOS; proceso++) {
+            for (int i = 0; i < ESCRITURAS; i++) {
+                assertEquals(1, ids.getOrDefault(proceso * 1000 + i, 0));
+            }
+        }
+        assertEquals(generacionUsuarios + PROCESOS * ESCRITURAS, usuarioDAO.obtenerGeneracion());
+        usuarioDAO.cerrar();
+    }
+
+    /**
+     * Proceso hijo: agrega categorías y usuarios con IDs propios sobre los archivos del directorio indicado.
+     */
+    public static class Proceso {
+
+        public static void main(String[] args) throws Exception {
+            Path directorio = Path.of(args[0]);
+            int proceso = Integer.parseInt(args[1]);
+            CategoriaDAO categoriaDAO = new CategoriaDAO(directorio.resolve("categorias.txt"));
+            UsuarioDAO usuarioDAO = new UsuarioDAO(directorio.resolve("usuarios.xml"), UsuarioDAO.ModoAlmacen.DIRECTO, 0);
+            for (int i = 0; i < ESCRITURAS; i++) {
+                long id = proceso * 1000L + i;
+                categoriaDAO.agregarCategoria(new Categoria(id, "Categoria " + id));
+                usuarioDAO.agregarUsuario(new Usuario((int) id, "Usuario " + id, "usuario" + id + "@example.com", "600000000"));
+            }
+            categoriaDAO.cerrar();
+            usuarioDAO.cerrar();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.lvg.grandao_biblioteca.modelo.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Comprueba el reparto de conexiones entre primaria y réplica con dos bases de datos H2 en memoria.
+ * Cada una tiene una tabla {@code origen} con su nombre, así que leerla dice a qué base de datos ha ido la consulta;
+ * la réplica tiene además una tabla con el retraso que devuelve la consulta del monitor.
+ */
+class FuenteDatosEnrutadaTest {
+
+    private HikariDataSource primaria;
+    private HikariDataSource replica;
+    private MonitorReplica monitor;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+    private final AtomicInteger conexionesReplica = new AtomicInteger();
+
+    @BeforeEach
+    void preparar() {
+        primaria = crear("primaria");
+        replica = crear("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE retraso_replica (segundos INT)");
+        new JdbcTemplate(replica).update("INSERT INTO retraso_replica VALUES (0)");
+
+        // Intervalo largo: las comprobaciones se lanzan a mano desde los tests.
+        monitor = MonitorReplica.iniciar(replica, "SELECT segundos AS Seconds_Behind_Master FROM retraso_replica",
+                "Seconds_Behind_Master", 5, 3_600_000);
+        LazyConnectionDataSourceProxy fuente = new LazyConnectionDataSourceProxy(
+                new FuenteDatosEnrutada(primaria, replica, monitor, conexionesReplica::incrementAndGet));
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(fuente);
+        jdbc = new JdbcTemplate(fuente);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        escritura = new TransactionTemplate(transacciones);
+    }
+
+    @AfterEach
+    void cerrar() {
+        monitor.close();
+        primaria.close();
+        replica.close();
+    }
+
+    @Test
+    void lasLecturasVanALaReplicaYElRestoALaPrimaria() {
+        assertEquals("replica", lectura.execute(estado -> origen()));
+        assertEquals("primaria", escritura.execute(estado -> origen()));
+        assertEquals("primaria", origen());
+
+        escritura.executeWithoutResult(estado -> jdbc.update("UPDATE origen SET nombre = 'primaria escrita'"));
+        assertEquals("primaria escrita", new JdbcTemplate(primaria).queryForObject("SELECT nombre FROM origen", String.class));
+        assertEquals("replica", new JdbcTemplate(replica).queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    @Test
+    void soloAvisaCuandoEntregaUnaConexionDeLaReplica() {
+        escritura.execute(estado -> origen());
+        origen();
+        assertEquals(0, conexionesReplica.get());
+
+        lectura.execute(estado -> origen() + origen());
+        assertEquals(1, conexionesReplica.get());
+
+        replica.close();
+        lectura.execute(estado -> origen());
+        assertEquals(1, conexionesReplica.get());
+    }
+
+    @Test
+    void conDemasiadoRetrasoLasLecturasVuelvenALaPrimaria() {
+        new JdbcTemplate(replica).update("UPDATE retraso_replica SET segundos = 30");
+        monitor.comprobar();
+        assertFalse(monitor.estaDisponible());
+        assertEquals("primaria", lectura.execute(estado -> origen()));
+
+        new JdbcTemplate(replica).update("UPDATE retraso_replica SET segundos = 2");
+        monitor.comprobar();
+        assertEquals("replica", lectura.execute(estado -> origen()));
+    }
+
+    @Test
+    void conLaReplicacionParadaLasLecturasVuelvenALaPrimaria() {
+        new JdbcTemplate(replica).update("UPDATE retraso_replica SET segundos = NULL");
+        monitor.comprobar();
+        assertEquals("primaria", lectura.execute(estado -> origen()));
+    }
+
+    @Test
+    void siLaReplicaNoDaConexionesLasLecturasVuelvenALaPrimaria() {
+        replica.close();
+        assertEquals("primaria", lectura.execute(estado -> origen()));
+        assertFalse(monitor.estaDisponible());
+    }
+
+    private String origen() {
+        return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private static HikariDataSource crear(String nombre) {
+        HikariDataSource fuente = new HikariDataSource();
+        fuente.setJdbcUrl("jdbc:h2:mem:" + nombre + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        fuente.setMaximumPoolSize(2);
+        JdbcTemplate jdbc = new JdbcTemplate(fuente);
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        jdbc.update("INSERT INTO origen VALUES (?)", nombre);
+        return fuente;
+    }
+}
@@ -0,0 +1,104 @@
+package com.lvg.grandao_biblioteca.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba con una base de datos H2 en memoria que la UPDATE condicional del préstamo no presta más ejemplares
+ * de los que hay aunque muchas transacciones intenten prestar el mismo libro a la vez. Cada hilo usa su propia
+ * conexión y su propia transacción, y todos esperan a los demás para lanzar la UPDATE al mismo tiempo.
+ */
+class PrestamoConcurrenteTest {
+
+    private static final int HILOS = 100;
+    private static final int LIBRO = 1;
+
+    private JdbcDataSource fuente;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void preparar() {
+        // Sin pool: cada hilo abre su conexión, más rápido que llenar un pool de HILOS conexiones.
+        // Las transacciones que esperan el bloqueo de la fila no deben agotar el tiempo de espera de H2 (1 s).
+        fuente = new JdbcDataSource();
+        fuente.setURL("jdbc:h2:mem:prestamos-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000");
+        jdbc = new JdbcTemplate(fuente);
+        jdbc.execute("CREATE TABLE Libros (libro_id INT PRIMARY KEY, cantidad INT NOT NULL, version INT NOT NULL)");
+    }
+
+    @AfterEach
+    void cerrar() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void conUnEjemplarSoloPrestaUnaTransaccion() throws Exception {
+        jdbc.update("INSERT INTO Libros VALUES (?, 1, 0)", LIBRO);
+
+        assertEquals(1, lanzar(LibroService.SQL_PRESTAR));
+        assertEquals(0, cantidad());
+    }
+
+    @Test
+    void prestaTantosComoEjemplaresYLasDevolucionesLosRecuperan() throws Exception {
+        jdbc.update("INSERT INTO Libros VALUES (?, 7, 0)", LIBRO);
+
+        assertEquals(7, lanzar(LibroService.SQL_PRESTAR));
+        assertEquals(0, cantidad());
+        assertEquals(HILOS, lanzar(LibroService.SQL_DEVOLVER));
+        assertEquals(HILOS, cantidad());
+    }
+
+    /**
+     * Ejecuta la UPDATE sobre el libro desde todos los hilos a la vez, cada uno en su transacción.
+     *
+     * @return El número de transacciones que han cambiado la fila.
+     */
+    private int lanzar(String sql) throws Exception {
+        CountDownLatch preparados = new CountDownLatch(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        try (ExecutorService hilos = Executors.newFixedThreadPool(HILOS)) {
+            List<Future<Integer>> filas = new ArrayList<>(HILOS);
+            for (int i = 0; i < HILOS; i++) {
+                filas.add(hilos.submit(() -> {
+                    try (Connection conexion = fuente.getConnection();
+                         PreparedStatement sentencia = conexion.prepareStatement(sql)) {
+                        conexion.setAutoCommit(false);
+                        sentencia.setInt(1, LIBRO);
+                        preparados.countDown();
+                        salida.await();
+                        int cambiadas = sentencia.executeUpdate();
+                        conexion.commit();
+                        return cambiadas;
+                    }
+                }));
+            }
+            preparados.await();
+            salida.countDown();
+            int total = 0;
+            for (Future<Integer> resultado : filas) {
+                total += resultado.get();
+            }
+            return total;
+        }
+    }
+
+    private int cantidad() {
+        return jdbc.queryForObject("SELECT cantidad FROM Libros WHERE libro_id = ?", Integer.class, LIBRO);
+    }
+}
@@ -0,0 +1,107 @@
+package com.lvg.grandao_biblioteca.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compara la validación de ISBN de {@link Isbn} con la que tenía {@code Libro.verificarIsbn} en la versión 1.0
+ * (copiada abajo): tiempo por ISBN y bytes reservados por ISBN. No es un test: se ejecuta a mano.
+ * <p>
+ * Uso: {@code BenchmarkIsbn [isbns] [rondas]}, por defecto {@code 100000 20}. Las primeras rondas sirven de
+ * calentamiento y solo cuenta la mejor de las demás.
+ */
+public class BenchmarkIsbn {
+
+    public static void main(String[] args) {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String[] isbns = generar(total);
+
+        medir("Libro.verificarIsbn (1.0)", isbns, rondas, isbn -> verificarIsbnAnterior(isbn) ? 1 : 0);
+        medir("Isbn.esValido", isbns, rondas, isbn -> Isbn.esValido(isbn) ? 1 : 0);
+        medir("Isbn.canonizar", isbns, rondas, isbn -> Isbn.canonizar(isbn) != null ? 1 : 0);
+    }
+
+    /**
+     * Mide la mejor ronda, a partir de la mitad, de aplicar la función a todos los ISBN.
+     */
+    private static void medir(String nombre, String[] isbns, int rondas, ToIntFunction<String> funcion) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().threadId();
+        double mejor = Double.MAX_VALUE;
+        double bytes = 0;
+        int validos = 0;
+        for (int ronda = 0; ronda < rondas; ronda++) {
+            long reservados = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            validos = 0;
+            for (String isbn : isbns) {
+                validos += funcion.applyAsInt(isbn);
+            }
+            double nanos = (double) (System.nanoTime() - inicio) / isbns.length;
+            if (ronda >= rondas / 2 && nanos < mejor) {
+                mejor = nanos;
+                bytes = (double) (hilos.getThreadAllocatedBytes(hilo) - reservados) / isbns.length;
+            }
+        }
+        System.out.printf("%-28s %8.1f ns/ISBN %8.1f B/ISBN (%d válidos)%n", nombre, mejor, bytes, validos);
+    }
+
+    /**
+     * Genera ISBN-13 e ISBN-10 con guiones, la mitad con un dígito de control erróneo.
+     */
+    private static String[] generar(int total) {
+        Random aleatorio = new Random(42);
+        String[] isbns = new String[total];
+        for (int i = 0; i < total; i++) {
+            StringBuilder digitos = new StringBuilder(i % 2 == 0 ? "978" : "");
+            while (digitos.length() < (i % 2 == 0 ? 12 : 9)) {
+                digitos.append(aleatorio.nextInt(10));
+            }
+            String control;
+            if (i % 2 == 0) {
+                int suma = 0;
+                for (int k = 0; k < 12; k++) {
+                    suma += (digitos.charAt(k) - '0') * (k % 2 == 0 ? 1 : 3);
+                }
+                control = String.valueOf((10 - suma % 10) % 10);
+            } else {
+                int suma = 0;
+                for (int k = 0; k < 9; k++) {
+                    suma += (10 - k) * (digitos.charAt(k) - '0');
+                }
+                int valor = (11 - suma % 11) % 11;
+                control = valor == 10 ? "X" : String.valueOf(valor);
+            }
+            if (aleatorio.nextBoolean()) {
+                control = control.equals("0") ? "1" : "0";
+            }
+            digitos.insert(digitos.length() - 4, '-').insert(i % 2 == 0 ? 3 : 1, '-');
+            isbns[i] = digitos + "-" + control;
+        }
+        return isbns;
+    }
+
+    // Implementación de Libro.verificarIsbn en la versión 1.0.
+    private static boolean verificarIsbnAnterior(String isbn) {
+        isbn = isbn.replaceAll("[^0-9X]", "");
+        if (isbn.length() == 13 && isbn.matches("\\d{13}")) {
+            int suma = 0;
+            for (int i = 0; i < 13; i++) {
+                int digito = Character.getNumericValue(isbn.charAt(i));
+                suma += i % 2 == 0 ? digito : digito * 3;
+            }
+            return suma % 10 == 0;
+        }
+        if (isbn.length() == 10 && isbn.matches("\\d{9}[0-9X]")) {
+            int suma = 0;
+            for (int i = 0; i < 9; i++) {
+                suma += (10 - i) * Character.getNumericValue(isbn.charAt(i));
+            }
+            suma += isbn.charAt(9) == 'X' ? 10 : Character.getNumericValue(isbn.charAt(9));
+            return suma % 11 == 0;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+package com.lvg.grandao_biblioteca.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba la validación de ISBN-10 e ISBN-13 y su conversión a la forma canónica.
+ */
+class IsbnTest {
+
+    @Test
+    void aceptaIsbn13ConYSinGuiones() {
+        assertEquals("9783161484100", Isbn.canonizar("978-3-16-148410-0"));
+        assertEquals("9783161484100", Isbn.canonizar("9783161484100"));
+        assertEquals("9783161484100", Isbn.canonizar("ISBN 978 3 16 148410 0"));
+        assertEquals(9783161484100L, Isbn.aNumero("978-3-16-148410-0"));
+    }
+
+    @Test
+    void convierteIsbn10AIsbn13() {
+        assertEquals("9780306406157", Isbn.canonizar("0-306-40615-2"));
+        assertEquals("9780804429573", Isbn.canonizar("0-8044-2957-X"));
+        assertEquals("9780804429573", Isbn.canonizar("080442957x"));
+    }
+
+    @Test
+    void rechazaIsbnNoValidos() {
+        assertFalse(Isbn.esValido("978-3-16-148410-1"));
+        assertFalse(Isbn.esValido("0-306-40615-3"));
+        assertFalse(Isbn.esValido("X-306-40615-2"));
+        assertFalse(Isbn.esValido("0-8044-2957-X0"));
+        assertFalse(Isbn.esValido("97831614841000"));
+        assertFalse(Isbn.esValido("12345"));
+        assertFalse(Isbn.esValido(""));
+        assertFalse(Isbn.esValido(null));
+        assertNull(Isbn.canonizar("978-3-16-148410-1"));
+        assertEquals(Isbn.NO_VALIDO, Isbn.aNumero("0-306-40615-3"));
+    }
+
+    @Test
+    void conservaLosCerosIniciales() {
+        // Un ISBN-13 con el control correcto es válido aunque no empiece por 978 o 979.
+        assertTrue(Isbn.esValido("0000000000000"));
+        assertEquals("0000000000000", Isbn.canonizar("0000000000000"));
+    }
+}